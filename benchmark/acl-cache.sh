@@ -0,0 +1,88 @@
+#!/usr/bin/env bash
+#
+# Measures the latency of GET /orders/{id}, which is authorized by the access control list of the order,
+# for working sets of different sizes and ACL cache sizes. Orders of the admin user and their access
+# control lists are generated by generate_series, then random orders of the working set are requested
+# after a warming pass. Prints the average, median and 99th percentile latency and the ACL cache hit ratio.
+#
+# Requires docker, curl, shuf and the application built by "./mvnw package".
+# Usage: benchmark/acl-cache.sh [working set...], by default 1000 10000 100000.
+# Environment: ORDERS - number of generated orders, REQUESTS - number of measured requests,
+# CACHE_SIZES - maximum numbers of ACL cache entries (two entries per order).
+set -euo pipefail
+
+ORDERS=${ORDERS:-1000000}
+REQUESTS=${REQUESTS:-5000}
+CACHE_SIZES=${CACHE_SIZES:-"2000 200000"}
+DB=trade-game-benchmark-db
+API=localhost:8080/api
+CLASS=ru.yakovlev.entities.Order
+
+jar=$(ls target/trade-game-*.jar | head -1)
+agent=$(find ~/.m2 -name 'spring-instrument-*.jar' | head -1)
+
+sql() {
+  docker exec "$DB" psql -U postgres -d trade-game -qtAc "$1"
+}
+
+start() {
+  java -javaagent:"$agent" -jar "$jar" "$@" > target/benchmark-acl-cache.log 2>&1 &
+  app=$!
+  until curl -s -o /dev/null "$API/"; do sleep 1; done
+}
+
+# Prints latencies in milliseconds of requests of random orders among the last $1 orders.
+request() {
+  shuf -i "$(( ORDERS - $1 + 1 ))-$ORDERS" -n "$2" -r | while read -r id; do
+    curl -s -o /dev/null -u admin:password -w '%{time_total}\n' "$API/orders/$id"
+  done | awk '{printf "%.3f\n", $1 * 1000}'
+}
+
+metric() {
+  curl -s -u admin:password "$API/actuator/metrics/cache.gets?tag=cache:acl&tag=result:$1" \
+    | grep -o '"value":[0-9.E]*' | cut -d: -f2
+}
+
+docker run -d --rm --name "$DB" -p 5432:5432 \
+  -e POSTGRES_DB=trade-game -e POSTGRES_PASSWORD=postgres postgres > /dev/null
+trap 'docker stop "$DB" > /dev/null' EXIT
+until [ "$(docker logs "$DB" 2>&1 | grep -c 'ready to accept connections')" -ge 2 ]; do sleep 1; done
+start
+kill "$app" && wait "$app" || true
+
+sql "INSERT INTO acl_class (class, class_id_type) VALUES ('$CLASS', 'java.lang.Long') ON CONFLICT DO NOTHING"
+sql "INSERT INTO acl_sid (principal, sid) VALUES (false, 'ROLE_SUPERVISOR'), (true, 'admin') ON CONFLICT DO NOTHING"
+sql "ALTER TABLE \"order\" DISABLE TRIGGER price_level_update"
+sql "INSERT INTO \"order\" (id, symbol, type, price, quantity, on_execution, cancelled, fully_executed,
+       quantity_leftover, version, owner)
+     SELECT i, 'DEFAULT', 'BUY', 10, 1, false, false, true, 0, 0, 'admin' FROM generate_series(1, $ORDERS) AS i"
+sql "ALTER TABLE \"order\" ENABLE TRIGGER price_level_update"
+sql "INSERT INTO acl_object_identity (id, object_id_class, object_id_identity, owner_sid, entries_inheriting)
+     SELECT o.id, c.id, CAST(o.id AS VARCHAR), s.id, true
+     FROM \"order\" AS o JOIN acl_sid AS s ON s.sid = o.owner AND s.principal = true
+       JOIN acl_class AS c ON c.class = '$CLASS'"
+sql "INSERT INTO acl_entry (acl_object_identity, ace_order, sid, mask, granting, audit_success, audit_failure)
+     SELECT i.id, 0, i.owner_sid, 31, true, false, false FROM acl_object_identity AS i
+     UNION ALL
+     SELECT i.id, 1, s.id, 1, true, false, false FROM acl_object_identity AS i
+       JOIN acl_sid AS s ON s.sid = 'ROLE_SUPERVISOR' AND s.principal = false"
+sql "SELECT setval('order_id_seq', $ORDERS)" > /dev/null
+sql "SELECT setval('acl_object_identity_id_seq', $ORDERS)" > /dev/null
+sql "VACUUM ANALYZE"
+
+for size in ${@:-1000 10000 100000}; do
+  for cache in $CACHE_SIZES; do
+    start --ru.yakovlev.security.acl-cache.maximum-size="$cache"
+    request "$size" "$size" > /dev/null
+    hits=$(metric hit)
+    misses=$(metric miss)
+    request "$size" "$REQUESTS" | sort -n > target/benchmark-acl-cache.txt
+    hits=$(echo "$(metric hit) - $hits" | bc)
+    misses=$(echo "$(metric miss) - $misses" | bc)
+    echo "=== working set $size orders, ACL cache $cache entries"
+    awk '{a[NR] = $1; s += $1} END {printf "average %.2f ms, median %.2f ms, p99 %.2f ms\n",
+      s / NR, a[int(NR * 0.5)], a[int(NR * 0.99)]}' target/benchmark-acl-cache.txt
+    echo "hit ratio $(echo "scale=3; $hits / ($hits + $misses)" | bc)"
+    kill "$app" && wait "$app" || true
+  done
+done
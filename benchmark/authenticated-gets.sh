@@ -0,0 +1,35 @@
+#!/usr/bin/env bash
+#
+# Compares throughput of authenticated GET /depth-of-market requests with HTTP Basic credentials
+# with and without the cache of verified credentials. Each request of the stateless client carries
+# the password, so without the cache every request verifies the Argon2 hash.
+#
+# Requires docker, curl, ab (apache2-utils) and the application built by "./mvnw package".
+# Usage: benchmark/authenticated-gets.sh
+# Environment: REQUESTS - number of requests per run, CONCURRENCY - number of concurrent clients.
+set -euo pipefail
+
+REQUESTS=${REQUESTS:-20000}
+CONCURRENCY=${CONCURRENCY:-16}
+DB=trade-game-benchmark-db
+API=localhost:8080/api
+
+jar=$(ls target/trade-game-*.jar | head -1)
+agent=$(find ~/.m2 -name 'spring-instrument-*.jar' | head -1)
+
+docker run -d --rm --name "$DB" -p 5432:5432 \
+  -e POSTGRES_DB=trade-game -e POSTGRES_PASSWORD=postgres postgres > /dev/null
+trap 'docker stop "$DB" > /dev/null' EXIT
+until [ "$(docker logs "$DB" 2>&1 | grep -c 'ready to accept connections')" -ge 2 ]; do sleep 1; done
+
+for enabled in false true; do
+  java -javaagent:"$agent" -jar "$jar" --ru.yakovlev.security.authentication-cache.enabled="$enabled" \
+    > "target/benchmark-authenticated-gets-$enabled.log" 2>&1 &
+  app=$!
+  until curl -s -o /dev/null "$API/"; do sleep 1; done
+  ab -q -n 100 -c "$CONCURRENCY" -A admin:password "http://$API/depth-of-market?symbol=DEFAULT" > /dev/null
+  echo "=== authentication cache enabled: $enabled"
+  ab -q -n "$REQUESTS" -c "$CONCURRENCY" -A admin:password "http://$API/depth-of-market?symbol=DEFAULT" \
+    | grep -E 'Requests per second|Time per request|Failed requests'
+  kill "$app" && wait "$app" || true
+done
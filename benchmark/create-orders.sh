@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+#
+# Measures the number of orders created per second by /orders/create-orders, orders are not executed
+# because buy prices are lower than sell prices. Each jar is measured on a fresh PostgreSQL container,
+# so builds before and after a change can be compared.
+#
+# Requires docker, curl and the application built by "./mvnw package".
+# Usage: benchmark/create-orders.sh [jar...], by default target/trade-game-*.jar.
+# Environment: BATCHES - number of batches, BATCH_SIZE - orders per batch, BULK_SEED - true to copy orders
+# and their access control lists by the PostgreSQL COPY, e.g. BULK_SEED=true BATCHES=1000 BATCH_SIZE=10000
+# seeds 10 million orders.
+set -euo pipefail
+
+BATCHES=${BATCHES:-1000}
+BATCH_SIZE=${BATCH_SIZE:-100}
+BULK_SEED=${BULK_SEED:-false}
+DB=trade-game-benchmark-db
+API=localhost:8080/api
+
+agent=$(find ~/.m2 -name 'spring-instrument-*.jar' | head -1)
+
+sql() {
+  docker exec "$DB" psql -U postgres -d trade-game -qtAc "$1"
+}
+
+create() {
+  curl -s -u admin:password -b target/benchmark-cookie.txt -H "X-XSRF-TOKEN: $token" \
+    -H "Content-Type: application/json" --data "{\"orderType\": \"$1\", \"minPrice\": $2, \"maxPrice\": $3,
+    \"minQuantity\": 1, \"maxQuantity\": 50, \"numberOfBatches\": $(( BATCHES / 2 )), \"batchSize\": $BATCH_SIZE,
+    \"delayBetweenBatches\": 0, \"bulkSeed\": $BULK_SEED}" "$API/orders/create-orders"
+}
+
+for jar in ${@:-$(ls target/trade-game-*.jar | head -1)}; do
+  docker run -d --rm --name "$DB" -p 5432:5432 \
+    -e POSTGRES_DB=trade-game -e POSTGRES_PASSWORD=postgres postgres > /dev/null
+  until [ "$(docker logs "$DB" 2>&1 | grep -c 'ready to accept connections')" -ge 2 ]; do sleep 1; done
+  java -javaagent:"$agent" -jar "$jar" > target/benchmark-create-orders.log 2>&1 &
+  app=$!
+  until curl -s -o /dev/null "$API/"; do sleep 1; done
+  curl -s -o /dev/null -u admin:password -c target/benchmark-cookie.txt "$API/"
+  token=$(awk '/XSRF-TOKEN/ {print $7}' target/benchmark-cookie.txt)
+  total=$(( BATCHES / 2 * 2 * BATCH_SIZE ))
+  start=$(date +%s%N)
+  create BUY 10 11
+  create SELL 20 21
+  until [ "$(sql 'SELECT count(*) FROM "order"')" -ge "$total" ]; do sleep 0.2; done
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  echo "$jar: $(( total * 1000 / elapsed )) orders per second, $(sql 'SELECT count(*) FROM acl_entry') ACL entries"
+  kill "$app" && wait "$app" || true
+  docker stop "$DB" > /dev/null
+done
@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+#
+# Compares reading the depth of market by GROUP BY over the order table with reading the price_level table
+# maintained by the trigger, and measures the cost of the trigger for inserted orders.
+# The schema is created by the application on a fresh PostgreSQL container, then the order table is filled
+# by generate_series for each size, a fifth of orders stay active.
+#
+# Requires docker, curl and the application built by "./mvnw package".
+# Usage: benchmark/depth-of-market.sh [size...], by default 1000000 10000000 50000000.
+# Environment: RUNS - number of measured runs of each query, LEVELS - number of prices per order type.
+set -euo pipefail
+
+RUNS=${RUNS:-10}
+LEVELS=${LEVELS:-1000}
+DB=trade-game-benchmark-db
+API=localhost:8080/api
+
+jar=$(ls target/trade-game-*.jar | head -1)
+agent=$(find ~/.m2 -name 'spring-instrument-*.jar' | head -1)
+
+sql() {
+  docker exec "$DB" psql -U postgres -d trade-game -qtAc "$1"
+}
+
+# Prints the average execution time of the query in milliseconds.
+measure() {
+  local total=0
+  for _ in $(seq "$RUNS"); do
+    time=$(sql "EXPLAIN (ANALYZE, FORMAT JSON) $1" | grep -o '"Execution Time": [0-9.]*' | awk '{print $3}')
+    total=$(echo "$total + $time" | bc)
+  done
+  echo "scale=2; $total / $RUNS" | bc
+}
+
+# Prints the time in milliseconds of inserting 100000 active orders with the trigger enabled or disabled.
+insert_orders() {
+  sql "ALTER TABLE \"order\" $1 TRIGGER price_level_update"
+  local start
+  start=$(date +%s%N)
+  sql "INSERT INTO \"order\" (symbol, type, price, quantity, on_execution, cancelled, fully_executed,
+         quantity_leftover, version)
+       SELECT 'DEFAULT', 'BUY', 10 + i % $LEVELS, 100, false, false, false, 100, 0
+       FROM generate_series(1, 100000) AS i" > /dev/null
+  echo $(( ($(date +%s%N) - start) / 1000000 ))
+}
+
+docker run -d --rm --name "$DB" -p 5432:5432 \
+  -e POSTGRES_DB=trade-game -e POSTGRES_PASSWORD=postgres postgres > /dev/null
+trap 'docker stop "$DB" > /dev/null' EXIT
+until [ "$(docker logs "$DB" 2>&1 | grep -c 'ready to accept connections')" -ge 2 ]; do sleep 1; done
+java -javaagent:"$agent" -jar "$jar" > target/benchmark-depth-of-market.log 2>&1 &
+app=$!
+until curl -s -o /dev/null "$API/"; do sleep 1; done
+kill "$app" && wait "$app" || true
+
+for size in ${@:-1000000 10000000 50000000}; do
+  sql "TRUNCATE \"order\", price_level, price_level_change CASCADE"
+  sql "ALTER TABLE \"order\" DISABLE TRIGGER price_level_update"
+  sql "INSERT INTO \"order\" (symbol, type, price, quantity, on_execution, cancelled, fully_executed,
+         quantity_leftover, version)
+       SELECT 'DEFAULT', CASE WHEN i % 2 = 0 THEN 'BUY' ELSE 'SELL' END, 10 + i % $LEVELS, 100, false, false,
+         random() < 0.8, 1 + (random() * 99)::int, 0
+       FROM generate_series(1, $size) AS i" > /dev/null
+  sql "INSERT INTO price_level (symbol, price, type, orders_count, overall_quantity)
+       SELECT symbol, price, type, count(*), sum(quantity_leftover) FROM \"order\"
+       WHERE cancelled = false AND fully_executed = false GROUP BY symbol, price, type" > /dev/null
+  sql "ALTER TABLE \"order\" ENABLE TRIGGER price_level_update"
+  sql "VACUUM ANALYZE" > /dev/null
+  group_by=$(measure "SELECT price, type, count(*), sum(quantity_leftover) FROM \"order\"
+    WHERE symbol = 'DEFAULT' AND cancelled = false AND fully_executed = false
+    GROUP BY price, type ORDER BY price, type")
+  table=$(measure "SELECT price, type, orders_count, overall_quantity FROM price_level_total
+    WHERE symbol = 'DEFAULT' ORDER BY price, type")
+  plain=$(insert_orders "DISABLE")
+  triggered=$(insert_orders "ENABLE")
+  echo "$size orders: GROUP BY ${group_by} ms, price_level ${table} ms," \
+    "100000 inserts ${plain} ms without trigger, ${triggered} ms with trigger"
+done
@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+#
+# Compares the number of trades per second in the order execution modes.
+# Each mode is measured on a fresh PostgreSQL container, orders with crossing prices are created
+# by /orders/create-orders and executed trades are counted by the transfer table.
+#
+# Requires docker, curl and the application built by "./mvnw package".
+# Usage: benchmark/execution-modes.sh [mode...], by default all modes: two-phase inline sweep.
+# Environment: DURATION - measurement duration in seconds, BOOK - database or in-memory.
+set -euo pipefail
+
+DURATION=${DURATION:-60}
+BOOK=${BOOK:-database}
+ORDERS='{"randomType": true, "minPrice": 10, "maxPrice": 11, "minQuantity": 1, "maxQuantity": 50,
+  "numberOfBatches": 1000, "batchSize": 100, "delayBetweenBatches": 0}'
+DB=trade-game-benchmark-db
+API=localhost:8080/api
+
+jar=$(ls target/trade-game-*.jar | head -1)
+agent=$(find ~/.m2 -name 'spring-instrument-*.jar' | head -1)
+
+sql() {
+  docker exec "$DB" psql -U postgres -d trade-game -tAc "$1"
+}
+
+for mode in ${@:-two-phase inline sweep}; do
+  docker run -d --rm --name "$DB" -p 5432:5432 \
+    -e POSTGRES_DB=trade-game -e POSTGRES_PASSWORD=postgres postgres > /dev/null
+  until [ "$(docker logs "$DB" 2>&1 | grep -c 'ready to accept connections')" -ge 2 ]; do sleep 1; done
+  java -javaagent:"$agent" -jar "$jar" \
+    --ru.yakovlev.order.execution.mode="$mode" --ru.yakovlev.order.execution.book="$BOOK" \
+    > "target/benchmark-$mode.log" 2>&1 &
+  app=$!
+  until curl -s -o /dev/null "$API/"; do sleep 1; done
+  curl -s -o /dev/null -u admin:password -c target/benchmark-cookie.txt "$API/"
+  token=$(awk '/XSRF-TOKEN/ {print $7}' target/benchmark-cookie.txt)
+  curl -s -u admin:password -b target/benchmark-cookie.txt -H "X-XSRF-TOKEN: $token" \
+    -H "Content-Type: application/json" --data "$ORDERS" "$API/orders/create-orders"
+  start=$(sql "SELECT count(*) FROM transfer WHERE quantity > 0")
+  sleep "$DURATION"
+  end=$(sql "SELECT count(*) FROM transfer WHERE quantity > 0")
+  echo "$mode: $(( (end - start) / DURATION )) trades per second"
+  kill "$app" && wait "$app" || true
+  docker stop "$DB" > /dev/null
+done
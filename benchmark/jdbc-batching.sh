@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+#
+# Compares the default persistence settings with the "batching" profile (JDBC batches of inserts and
+# versioned updates, ordered statements and reWriteBatchedInserts). Each profile is measured on a fresh
+# PostgreSQL container with pg_stat_statements: first buy orders are created by /orders/create-orders
+# without trades, then sell orders with crossing prices produce a burst of executions. For both phases
+# the throughput and the number of statements executed by PostgreSQL per table are printed, with
+# rewritten batches a statement inserts many rows.
+#
+# Requires docker, curl and the application built by "./mvnw package".
+# Usage: benchmark/jdbc-batching.sh [profile...], by default default batching.
+# Environment: BATCHES - number of batches, BATCH_SIZE - orders per batch, DURATION - maximum duration
+# of the execution burst in seconds.
+set -euo pipefail
+
+BATCHES=${BATCHES:-500}
+BATCH_SIZE=${BATCH_SIZE:-100}
+DURATION=${DURATION:-120}
+DB=trade-game-benchmark-db
+API=localhost:8080/api
+
+jar=$(ls target/trade-game-*.jar | head -1)
+agent=$(find ~/.m2 -name 'spring-instrument-*.jar' | head -1)
+
+sql() {
+  docker exec "$DB" psql -U postgres -d trade-game -qtAc "$1"
+}
+
+create() {
+  curl -s -u admin:password -b target/benchmark-cookie.txt -H "X-XSRF-TOKEN: $token" \
+    -H "Content-Type: application/json" --data "{\"orderType\": \"$1\", \"minPrice\": 10, \"maxPrice\": 11,
+    \"minQuantity\": 1, \"maxQuantity\": 50, \"numberOfBatches\": $BATCHES, \"batchSize\": $BATCH_SIZE,
+    \"delayBetweenBatches\": 0}" "$API/orders/create-orders"
+}
+
+statements() {
+  sql "SELECT substring(lower(query) FROM '^(?:insert into|update)\s+\"?\w+\"?') AS statement,
+         sum(calls), sum(rows)
+       FROM pg_stat_statements WHERE query ~* '^(insert|update)' GROUP BY 1 ORDER BY 1" \
+    | awk -F'|' '{printf "  %-32s %10d statements %10d rows\n", $1, $2, $3}'
+  sql "SELECT pg_stat_statements_reset()" > /dev/null
+}
+
+for profile in ${@:-default batching}; do
+  docker run -d --rm --name "$DB" -p 5432:5432 -e POSTGRES_DB=trade-game -e POSTGRES_PASSWORD=postgres \
+    postgres -c shared_preload_libraries=pg_stat_statements > /dev/null
+  until [ "$(docker logs "$DB" 2>&1 | grep -c 'ready to accept connections')" -ge 2 ]; do sleep 1; done
+  sql "CREATE EXTENSION pg_stat_statements"
+  java -javaagent:"$agent" -jar "$jar" --spring.profiles.active="$profile" \
+    > "target/benchmark-jdbc-batching-$profile.log" 2>&1 &
+  app=$!
+  until curl -s -o /dev/null "$API/"; do sleep 1; done
+  curl -s -o /dev/null -u admin:password -c target/benchmark-cookie.txt "$API/"
+  token=$(awk '/XSRF-TOKEN/ {print $7}' target/benchmark-cookie.txt)
+  total=$(( BATCHES * BATCH_SIZE ))
+  sql "SELECT pg_stat_statements_reset()" > /dev/null
+
+  start=$(date +%s%N)
+  create BUY
+  until [ "$(sql 'SELECT count(*) FROM "order"')" -ge "$total" ]; do sleep 0.2; done
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  echo "=== $profile: bulk creation, $(( total * 1000 / elapsed )) orders per second"
+  statements
+
+  start=$(date +%s%N)
+  create SELL
+  trades=0
+  for _ in $(seq "$DURATION"); do
+    sleep 1
+    current=$(sql "SELECT count(*) FROM transfer WHERE quantity > 0")
+    if [ "$current" -gt 0 ] && [ "$current" -eq "$trades" ]; then
+      break
+    fi
+    trades=$current
+  done
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  echo "=== $profile: execution burst, $(( trades * 1000 / elapsed )) trades per second"
+  statements
+
+  kill "$app" && wait "$app" || true
+  docker stop "$DB" > /dev/null
+done
@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+#
+# Compares query plans of the first page of GET /orders for a user: the former query over the access control
+# list tables and the query by the owner column. The schema is created by the application on a fresh
+# PostgreSQL container, orders and their access control lists are generated by generate_series for each size.
+#
+# Requires docker, curl and the application built by "./mvnw package".
+# Usage: benchmark/orders-listing.sh [size...], by default 1000000 10000000.
+# Environment: USERS - number of order owners, PAGE - page size.
+set -euo pipefail
+
+USERS=${USERS:-100}
+PAGE=${PAGE:-20}
+DB=trade-game-benchmark-db
+API=localhost:8080/api
+CLASS=ru.yakovlev.entities.Order
+
+jar=$(ls target/trade-game-*.jar | head -1)
+agent=$(find ~/.m2 -name 'spring-instrument-*.jar' | head -1)
+
+sql() {
+  docker exec "$DB" psql -U postgres -d trade-game -qtAc "$1"
+}
+
+explain() {
+  echo "$1"
+  sql "EXPLAIN (ANALYZE, BUFFERS) $2"
+}
+
+docker run -d --rm --name "$DB" -p 5432:5432 \
+  -e POSTGRES_DB=trade-game -e POSTGRES_PASSWORD=postgres postgres > /dev/null
+trap 'docker stop "$DB" > /dev/null' EXIT
+until [ "$(docker logs "$DB" 2>&1 | grep -c 'ready to accept connections')" -ge 2 ]; do sleep 1; done
+java -javaagent:"$agent" -jar "$jar" > target/benchmark-orders-listing.log 2>&1 &
+app=$!
+until curl -s -o /dev/null "$API/"; do sleep 1; done
+kill "$app" && wait "$app" || true
+
+sql "INSERT INTO acl_class (class, class_id_type) VALUES ('$CLASS', 'java.lang.Long') ON CONFLICT DO NOTHING"
+sql "INSERT INTO acl_sid (principal, sid) VALUES (false, 'ROLE_SUPERVISOR') ON CONFLICT DO NOTHING"
+sql "INSERT INTO acl_sid (principal, sid) SELECT true, 'user' || u FROM generate_series(1, $USERS) AS u
+     ON CONFLICT DO NOTHING"
+
+for size in ${@:-1000000 10000000}; do
+  sql "TRUNCATE \"order\", acl_entry, acl_object_identity CASCADE"
+  sql "ALTER TABLE \"order\" DISABLE TRIGGER price_level_update"
+  sql "INSERT INTO \"order\" (id, symbol, type, price, quantity, on_execution, cancelled, fully_executed,
+         quantity_leftover, version, owner)
+       SELECT i, 'DEFAULT', 'BUY', 10, 1, false, false, true, 0, 0, 'user' || (1 + i % $USERS)
+       FROM generate_series(1, $size) AS i"
+  sql "ALTER TABLE \"order\" ENABLE TRIGGER price_level_update"
+  sql "INSERT INTO acl_object_identity (id, object_id_class, object_id_identity, owner_sid, entries_inheriting)
+       SELECT o.id, c.id, CAST(o.id AS VARCHAR), s.id, true
+       FROM \"order\" AS o JOIN acl_sid AS s ON s.sid = o.owner AND s.principal = true
+         JOIN acl_class AS c ON c.class = '$CLASS'"
+  sql "INSERT INTO acl_entry (acl_object_identity, ace_order, sid, mask, granting, audit_success, audit_failure)
+       SELECT i.id, 0, i.owner_sid, 31, true, false, false FROM acl_object_identity AS i
+       UNION ALL
+       SELECT i.id, 1, s.id, 1, true, false, false FROM acl_object_identity AS i
+         JOIN acl_sid AS s ON s.sid = 'ROLE_SUPERVISOR' AND s.principal = false"
+  sql "VACUUM ANALYZE"
+  echo "=== $size orders, $USERS users"
+  explain "--- ACL query" "SELECT o.* FROM \"order\" AS o WHERE EXISTS (
+      SELECT 1 FROM acl_sid AS s
+        JOIN acl_entry AS e ON e.sid = s.id
+        JOIN acl_object_identity AS i_parent ON i_parent.id = e.acl_object_identity
+        JOIN acl_object_identity AS i ON i.id = i_parent.parent_object OR i.id = i_parent.id
+        JOIN acl_class AS c ON i.object_id_class = c.id
+      WHERE (s.principal = true AND s.sid = 'user1' OR s.principal = false AND s.sid IN ('ROLE_USER'))
+        AND (MOD(e.mask, 2) = 1 AND e.granting = true OR MOD(e.mask, 2) = 0 AND e.granting = false)
+        AND c.class = '$CLASS' AND i.object_id_identity = CONCAT('', o.id))
+    ORDER BY o.id LIMIT $PAGE"
+  explain "--- owner query" "SELECT o.* FROM \"order\" AS o
+    WHERE o.owner = 'user1'
+    ORDER BY o.id LIMIT $PAGE"
+done
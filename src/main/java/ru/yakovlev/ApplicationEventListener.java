@@ -27,6 +27,8 @@ package ru.yakovlev;
 import lombok.AllArgsConstructor;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import ru.yakovlev.config.OrderExecutionProperties;
+import ru.yakovlev.service.OrderBook;
 import ru.yakovlev.service.OrdersForExecution;
 
 /**
@@ -38,17 +40,27 @@ import ru.yakovlev.service.OrdersForExecution;
 @AllArgsConstructor
 public class ApplicationEventListener {
     private final OrdersForExecution ordersForExecution;
-    private final int workers;
+    private final OrderBook orderBook;
+    private final OrderExecutionProperties properties;
 
     /**
-     * Launches threads for order execution.
+     * Loads the in-memory order book, if it is used, and launches threads for order execution.
+     * Workers are distributed among lanes in turn, each lane gets at least one worker, unless
+     * no workers are configured.
      *
      * @param event context refreshed event.
      */
     @EventListener
     public void handleContextStart(ContextRefreshedEvent event) {
-        for (int i = 0; i < this.workers; i++) {
-            this.ordersForExecution.startExecutionWorker();
+        if (OrderExecutionProperties.Book.IN_MEMORY.equals(this.properties.getBook())) {
+            this.orderBook.load();
+        }
+        int workers = this.properties.getWorkers();
+        if (workers > 0) {
+            workers = Math.max(workers, this.ordersForExecution.lanes());
+        }
+        for (int i = 0; i < workers; i++) {
+            this.ordersForExecution.startExecutionWorker(this.ordersForExecution.nextLane());
         }
     }
 }
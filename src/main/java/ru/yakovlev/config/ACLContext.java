@@ -24,12 +24,14 @@
 
 package ru.yakovlev.config;
 
-import java.util.Objects;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import javax.sql.DataSource;
 import lombok.AllArgsConstructor;
 import lombok.val;
-import org.springframework.cache.ehcache.EhCacheFactoryBean;
-import org.springframework.cache.ehcache.EhCacheManagerFactoryBean;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.access.PermissionEvaluator;
@@ -40,13 +42,14 @@ import org.springframework.security.acls.AclPermissionEvaluator;
 import org.springframework.security.acls.domain.AclAuthorizationStrategy;
 import org.springframework.security.acls.domain.AclAuthorizationStrategyImpl;
 import org.springframework.security.acls.domain.ConsoleAuditLogger;
-import org.springframework.security.acls.domain.EhCacheBasedAclCache;
+import org.springframework.security.acls.domain.SpringCacheBasedAclCache;
 import org.springframework.security.acls.jdbc.BasicLookupStrategy;
-import org.springframework.security.acls.jdbc.JdbcMutableAclService;
 import org.springframework.security.acls.jdbc.LookupStrategy;
 import org.springframework.security.acls.model.AclService;
 import org.springframework.security.acls.model.PermissionGrantingStrategy;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import ru.yakovlev.service.security.AuthenticationMemo;
+import ru.yakovlev.service.security.BatchMutableAclService;
 import ru.yakovlev.service.security.CustomPermissionGrantingStrategy;
 
 /**
@@ -59,24 +62,20 @@ import ru.yakovlev.service.security.CustomPermissionGrantingStrategy;
 @AllArgsConstructor
 public class ACLContext {
     private final DataSource dataSource;
+    private final AuthenticationMemo authenticationMemo;
+    private final AclCacheProperties aclCacheProperties;
+    private final MeterRegistry meterRegistry;
 
     @Bean
-    EhCacheBasedAclCache aclCache() {
-        return new EhCacheBasedAclCache(
-                aclEhCacheFactoryBean().getObject(), permissionGrantingStrategy(), aclAuthorizationStrategy());
-    }
-
-    @Bean
-    EhCacheFactoryBean aclEhCacheFactoryBean() {
-        EhCacheFactoryBean ehCacheFactoryBean = new EhCacheFactoryBean();
-        ehCacheFactoryBean.setCacheManager(Objects.requireNonNull(aclCacheManager().getObject()));
-        ehCacheFactoryBean.setCacheName("aclCache");
-        return ehCacheFactoryBean;
-    }
-
-    @Bean
-    EhCacheManagerFactoryBean aclCacheManager() {
-        return new EhCacheManagerFactoryBean();
+    SpringCacheBasedAclCache aclCache() {
+        final Cache<Object, Object> cache = Caffeine.newBuilder()
+                .maximumSize(this.aclCacheProperties.getMaximumSize())
+                .expireAfterWrite(this.aclCacheProperties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(this.meterRegistry, cache, "acl");
+        return new SpringCacheBasedAclCache(
+                new CaffeineCache("aclCache", cache), permissionGrantingStrategy(), aclAuthorizationStrategy());
     }
 
     @Bean
@@ -93,8 +92,11 @@ public class ACLContext {
     MethodSecurityExpressionHandler defaultMethodSecurityExpressionHandler() {
         DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
         AclPermissionEvaluator permissionEvaluator = new AclPermissionEvaluator(aclService());
+        permissionEvaluator.setSidRetrievalStrategy(this.authenticationMemo);
         expressionHandler.setPermissionEvaluator(permissionEvaluator);
-        expressionHandler.setPermissionCacheOptimizer(new AclPermissionCacheOptimizer(aclService()));
+        val permissionCacheOptimizer = new AclPermissionCacheOptimizer(aclService());
+        permissionCacheOptimizer.setSidRetrievalStrategy(this.authenticationMemo);
+        expressionHandler.setPermissionCacheOptimizer(permissionCacheOptimizer);
         return expressionHandler;
     }
 
@@ -107,8 +109,8 @@ public class ACLContext {
     }
 
     @Bean
-    JdbcMutableAclService aclService() {
-        val aclService = new JdbcMutableAclService(this.dataSource, lookupStrategy(), aclCache());
+    BatchMutableAclService aclService() {
+        val aclService = new BatchMutableAclService(this.dataSource, lookupStrategy(), aclCache());
         aclService.setAclClassIdSupported(true);
         aclService.setClassIdentityQuery("select currval('acl_class_id_seq')");
         aclService.setSidIdentityQuery("select currval('acl_sid_id_seq')");
@@ -117,7 +119,9 @@ public class ACLContext {
 
     @Bean
     PermissionEvaluator permissionEvaluator(final AclService aclService) {
-        return new AclPermissionEvaluator(aclService);
+        val permissionEvaluator = new AclPermissionEvaluator(aclService);
+        permissionEvaluator.setSidRetrievalStrategy(this.authenticationMemo);
+        return permissionEvaluator;
     }
 
 }
@@ -0,0 +1,72 @@
+package ru.yakovlev.config;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+/**
+ * Properties of the access control list cache.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@ConfigurationProperties("ru.yakovlev.security.acl-cache")
+@ConstructorBinding
+@AllArgsConstructor
+@Builder
+public class AclCacheProperties {
+    private final Long maximumSize;
+    private final Duration expireAfterWrite;
+    private final Integer warmUpOrders;
+
+    /**
+     * Returns the maximum number of cache entries. An access control list takes two entries: by the object
+     * identity and by the primary key.
+     *
+     * @return maximum number of cache entries.
+     */
+    public Long getMaximumSize() {
+        final long result;
+        if (Objects.isNull(this.maximumSize)) {
+            result = 200_000L;
+        } else {
+            result = this.maximumSize;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the time after which an access control list is read from the database again, it limits
+     * the time a change made by another application instance is not noticed.
+     *
+     * @return time access control lists are cached.
+     */
+    public Duration getExpireAfterWrite() {
+        final Duration result;
+        if (Objects.isNull(this.expireAfterWrite)) {
+            result = Duration.ofMinutes(10);
+        } else {
+            result = this.expireAfterWrite;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of the most recent orders of a user whose access control lists are loaded
+     * after the user is authenticated.
+     *
+     * @return number of orders, zero disables the warm-up.
+     */
+    public Integer getWarmUpOrders() {
+        final int result;
+        if (Objects.isNull(this.warmUpOrders)) {
+            result = 100;
+        } else {
+            result = this.warmUpOrders;
+        }
+        return result;
+    }
+}
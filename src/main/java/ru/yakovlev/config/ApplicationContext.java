@@ -24,17 +24,31 @@
 
 package ru.yakovlev.config;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import lombok.AllArgsConstructor;
+import lombok.val;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 import ru.yakovlev.ApplicationEventListener;
-import ru.yakovlev.entities.Order;
-import ru.yakovlev.repositories.OrderExecutionRepository;
+import ru.yakovlev.model.OrderBookEntry;
 import ru.yakovlev.repositories.OrderRepository;
+import ru.yakovlev.service.BookOrderForExecution;
+import ru.yakovlev.service.DatabaseOrderForExecution;
+import ru.yakovlev.service.OrderBook;
+import ru.yakovlev.service.OrderExecutionQueue;
 import ru.yakovlev.service.OrderForExecution;
+import ru.yakovlev.service.OrderLanes;
+import ru.yakovlev.service.OrderPairExecution;
 import ru.yakovlev.service.OrdersForExecution;
+import ru.yakovlev.service.PriceBands;
 
 /**
  * Application context configuration.
@@ -47,23 +61,70 @@ import ru.yakovlev.service.OrdersForExecution;
 public class ApplicationContext {
 
     @Bean
-    ApplicationEventListener eventListener(final OrdersForExecution ordersForExecution,
+    ApplicationEventListener eventListener(final OrdersForExecution ordersForExecution, final OrderBook orderBook,
                                            final OrderExecutionProperties orderExecutionProperties) {
-        return new ApplicationEventListener(ordersForExecution, orderExecutionProperties.getWorkers());
+        return new ApplicationEventListener(ordersForExecution, orderBook, orderExecutionProperties);
+    }
+
+    @Bean
+    OrderBook orderBook(final OrderRepository orderRepository) {
+        return new OrderBook(orderRepository);
+    }
+
+    @Bean
+    @Scope("prototype")
+    OrderForExecution orderForExecution(final Long orderId, final OrderRepository orderRepository,
+                                        final OrderPairExecution orderPairExecution, final Counter counterMisses) {
+        return new DatabaseOrderForExecution(orderId, orderRepository, orderPairExecution, counterMisses);
     }
 
     @Bean
     @Scope("prototype")
-    OrderForExecution orderForExecution(final Order order, final OrderRepository orderRepository,
-                                        final OrderExecutionRepository orderExecutionRepository) {
-        return new OrderForExecution(order, orderRepository, orderExecutionRepository);
+    OrderForExecution bookOrderForExecution(final Long orderId, final OrderBook orderBook,
+                                            final OrderRepository orderRepository,
+                                            final OrderPairExecution orderPairExecution,
+                                            final Counter counterMisses) {
+        return new BookOrderForExecution(orderId, orderBook, orderRepository, orderPairExecution, counterMisses);
+    }
+
+    @Bean
+    PriceBands priceBands(final OrderExecutionProperties orderExecutionProperties) {
+        return new PriceBands(orderExecutionProperties.getBands());
+    }
+
+    @Bean
+    OrderLanes orderLanes(final OrderExecutionProperties orderExecutionProperties) {
+        return new OrderLanes(orderExecutionProperties.getSymbols(), this.priceBands(orderExecutionProperties));
     }
 
     @Bean
     OrdersForExecution orderExecutions(final OrderRepository orderRepository,
-                                       final OrderExecutionRepository orderExecutionRepository) {
-        return new OrdersForExecution(new LinkedBlockingQueue<>(),
-                order -> this.orderForExecution(order, orderRepository, orderExecutionRepository), orderRepository);
+                                       final OrderPairExecution orderPairExecution,
+                                       final OrderBook orderBook,
+                                       final OrderExecutionProperties orderExecutionProperties,
+                                       final MeterRegistry meterRegistry) {
+        val counterMisses = Counter.builder("order.matching.counter.misses")
+                .description("Counter orders that crossed the incoming order but were locked by another execution")
+                .tag("book", orderExecutionProperties.getBook().name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        final Function<Long, OrderForExecution> orderFactory;
+        final Consumer<OrderBookEntry> book;
+        if (OrderExecutionProperties.Book.IN_MEMORY.equals(orderExecutionProperties.getBook())) {
+            orderFactory = id -> this.bookOrderForExecution(
+                    id, orderBook, orderRepository, orderPairExecution, counterMisses);
+            book = orderBook::add;
+        } else {
+            orderFactory = id -> this.orderForExecution(id, orderRepository, orderPairExecution, counterMisses);
+            book = entry -> { };
+        }
+        val lanes = this.orderLanes(orderExecutionProperties);
+        final List<OrderExecutionQueue> queues = new ArrayList<>(lanes.size());
+        for (int i = 0; i < lanes.size(); i++) {
+            queues.add(new OrderExecutionQueue(orderExecutionProperties.getQueueCapacity(),
+                    orderExecutionProperties.getOverloadPolicy(), meterRegistry,
+                    Tags.of("symbol", lanes.symbol(i), "band", String.valueOf(lanes.band(i)))));
+        }
+        return new OrdersForExecution(queues, lanes, orderFactory, orderRepository, book, meterRegistry);
     }
 
 }
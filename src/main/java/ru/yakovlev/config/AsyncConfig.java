@@ -25,6 +25,7 @@
 package ru.yakovlev.config;
 
 import lombok.AllArgsConstructor;
+import lombok.val;
 import org.springframework.boot.task.TaskExecutorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -56,6 +57,16 @@ public class AsyncConfig {
         return new DelegatingSecurityContextAsyncTaskExecutor(applicationTaskExecutor);
     }
 
+    @Bean
+    ThreadPoolTaskExecutor depthOfMarketStreamExecutor(final DepthOfMarketProperties depthOfMarketProperties) {
+        val executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("depth-of-market-stream-");
+        executor.setCorePoolSize(depthOfMarketProperties.getStreamThreads());
+        executor.setMaxPoolSize(depthOfMarketProperties.getStreamThreads());
+        executor.setQueueCapacity(depthOfMarketProperties.getStreamQueueCapacity());
+        return executor;
+    }
+
     @Bean
     TaskExecutor simpleAsyncTaskExecutor() {
         return new DelegatingSecurityContextTaskExecutor(new SimpleAsyncTaskExecutor());
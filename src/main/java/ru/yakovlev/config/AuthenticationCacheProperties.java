@@ -0,0 +1,70 @@
+package ru.yakovlev.config;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+/**
+ * Properties of the cache of verified Basic credentials.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@ConfigurationProperties("ru.yakovlev.security.authentication-cache")
+@ConstructorBinding
+@AllArgsConstructor
+@Builder
+public class AuthenticationCacheProperties {
+    private final Boolean enabled;
+    private final Long maximumSize;
+    private final Duration expireAfterWrite;
+
+    /**
+     * Returns whether verified credentials are cached.
+     *
+     * @return true if verified credentials are cached.
+     */
+    public Boolean getEnabled() {
+        final boolean result;
+        if (Objects.isNull(this.enabled)) {
+            result = true;
+        } else {
+            result = this.enabled;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of cached credentials.
+     *
+     * @return maximum number of cached credentials.
+     */
+    public Long getMaximumSize() {
+        final long result;
+        if (Objects.isNull(this.maximumSize)) {
+            result = 10_000L;
+        } else {
+            result = this.maximumSize;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the time after which credentials are verified again, it limits the time a changed password
+     * or authorities are not noticed by other application instances.
+     *
+     * @return time credentials are cached.
+     */
+    public Duration getExpireAfterWrite() {
+        final Duration result;
+        if (Objects.isNull(this.expireAfterWrite)) {
+            result = Duration.ofMinutes(5);
+        } else {
+            result = this.expireAfterWrite;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yakovlev.config;
+
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+/**
+ * Depth of market properties.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@ConfigurationProperties("ru.yakovlev.depth-of-market")
+@ConstructorBinding
+@AllArgsConstructor
+@Builder
+public class DepthOfMarketProperties {
+    private final Source source;
+    private final Integer streamThreads;
+    private final Integer streamQueueCapacity;
+
+    /**
+     * Returns the source of price levels of the full depth of market.
+     *
+     * @return source of price levels.
+     */
+    public Source getSource() {
+        final Source result;
+        if (Objects.isNull(this.source)) {
+            result = Source.CACHE;
+        } else {
+            result = this.source;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of threads sending depth of market events to subscribers.
+     *
+     * @return number of threads.
+     */
+    public Integer getStreamThreads() {
+        final int result;
+        if (Objects.isNull(this.streamThreads)) {
+            result = 2;
+        } else {
+            result = this.streamThreads;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of subscribers waiting for a thread to send their events.
+     *
+     * @return capacity of the queue of the stream executor.
+     */
+    public Integer getStreamQueueCapacity() {
+        final int result;
+        if (Objects.isNull(this.streamQueueCapacity)) {
+            result = 10_000;
+        } else {
+            result = this.streamQueueCapacity;
+        }
+        return result;
+    }
+
+    /**
+     * Source of price levels.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    public enum Source {
+
+        /**
+         * Price levels are taken from the in-memory depth of market of the application instance.
+         */
+        CACHE,
+
+        /**
+         * Price levels are read from the price_level table, which is maintained by a trigger on the order table
+         * and is shared by all application instances.
+         */
+        TABLE
+    }
+}
@@ -24,10 +24,15 @@
 
 package ru.yakovlev.config;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
+import ru.yakovlev.entities.Order;
 
 /**
  * Order execution properties.
@@ -38,8 +43,22 @@ import org.springframework.boot.context.properties.ConstructorBinding;
 @ConfigurationProperties("ru.yakovlev.order.execution")
 @ConstructorBinding
 @AllArgsConstructor
+@Builder
 public class OrderExecutionProperties {
     private final Integer workers;
+    private final Book book;
+    private final Mode mode;
+    private final Integer sweepLimit;
+    private final Integer auditBatchSize;
+    private final Integer recoveryBatchSize;
+    private final Integer queueCapacity;
+    private final OverloadPolicy overloadPolicy;
+    private final Integer retryAttempts;
+    private final Duration retryBackoff;
+    private final Duration retryMaxBackoff;
+    private final RetryExhaustedPolicy retryExhaustedPolicy;
+    private final List<BigDecimal> bands;
+    private final List<String> symbols;
 
     /**
      * Returns the number of threads for order execution.
@@ -55,4 +74,295 @@ public class OrderExecutionProperties {
         }
         return result;
     }
+
+    /**
+     * Returns the source of counter orders for order execution.
+     *
+     * @return source of counter orders.
+     */
+    public Book getBook() {
+        final Book result;
+        if (Objects.isNull(this.book)) {
+            result = Book.DATABASE;
+        } else {
+            result = this.book;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the order execution mode.
+     *
+     * @return order execution mode.
+     */
+    public Mode getMode() {
+        final Mode result;
+        if (Objects.isNull(this.mode)) {
+            result = Mode.TWO_PHASE;
+        } else {
+            result = this.mode;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of counter orders that the incoming order is executed against
+     * in one transaction in the sweep mode.
+     *
+     * @return maximum number of counter orders.
+     */
+    public Integer getSweepLimit() {
+        final int result;
+        if (Objects.isNull(this.sweepLimit)) {
+            result = 100;
+        } else {
+            result = this.sweepLimit;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of orders checked by one run of the quantity leftover audit.
+     *
+     * @return number of orders checked by one run of the audit.
+     */
+    public Integer getAuditBatchSize() {
+        final int result;
+        if (Objects.isNull(this.auditBatchSize)) {
+            result = 1000;
+        } else {
+            result = this.auditBatchSize;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of order executions without transfer checked by one run of the recovery.
+     *
+     * @return number of order executions checked by one run of the recovery.
+     */
+    public Integer getRecoveryBatchSize() {
+        final int result;
+        if (Objects.isNull(this.recoveryBatchSize)) {
+            result = 100;
+        } else {
+            result = this.recoveryBatchSize;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of orders waiting in the queue for execution.
+     *
+     * @return capacity of the order execution queue.
+     */
+    public Integer getQueueCapacity() {
+        final int result;
+        if (Objects.isNull(this.queueCapacity)) {
+            result = 10_000;
+        } else {
+            result = this.queueCapacity;
+        }
+        return result;
+    }
+
+    /**
+     * Returns what happens to an order when the order execution queue is full.
+     *
+     * @return overload policy of the order execution queue.
+     */
+    public OverloadPolicy getOverloadPolicy() {
+        final OverloadPolicy result;
+        if (Objects.isNull(this.overloadPolicy)) {
+            result = OverloadPolicy.BLOCK;
+        } else {
+            result = this.overloadPolicy;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of attempts to execute an order execution on optimistic lock conflicts,
+     * an order execution is always attempted at least once.
+     *
+     * @return number of attempts.
+     */
+    public Integer getRetryAttempts() {
+        final int result;
+        if (Objects.isNull(this.retryAttempts)) {
+            result = 5;
+        } else {
+            result = this.retryAttempts;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the delay before the first retry, it is doubled for each next retry.
+     *
+     * @return initial retry delay.
+     */
+    public Duration getRetryBackoff() {
+        final Duration result;
+        if (Objects.isNull(this.retryBackoff)) {
+            result = Duration.ofMillis(10);
+        } else {
+            result = this.retryBackoff;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum delay between retries.
+     *
+     * @return maximum retry delay.
+     */
+    public Duration getRetryMaxBackoff() {
+        final Duration result;
+        if (Objects.isNull(this.retryMaxBackoff)) {
+            result = Duration.ofSeconds(1);
+        } else {
+            result = this.retryMaxBackoff;
+        }
+        return result;
+    }
+
+    /**
+     * Returns what happens to an order execution when all attempts failed.
+     *
+     * @return retry exhausted policy.
+     */
+    public RetryExhaustedPolicy getRetryExhaustedPolicy() {
+        final RetryExhaustedPolicy result;
+        if (Objects.isNull(this.retryExhaustedPolicy)) {
+            result = RetryExhaustedPolicy.REQUEUE;
+        } else {
+            result = this.retryExhaustedPolicy;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the boundaries of price bands. Each price band of each symbol has its own order execution
+     * queue, an order goes to the band which contains its price. Workers are assigned to bands in turn and
+     * each band gets at least one, so incoming orders of a band are executed in order of arrival only when
+     * there are no more workers than bands. Without boundaries and with one symbol all orders share one queue.
+     *
+     * @return ascending boundaries of price bands.
+     */
+    public List<BigDecimal> getBands() {
+        final List<BigDecimal> result;
+        if (Objects.isNull(this.bands)) {
+            result = List.of();
+        } else {
+            result = this.bands;
+        }
+        return result;
+    }
+
+    /**
+     * Returns symbols of traded instruments. Each symbol has its own order execution queues and workers,
+     * orders of other symbols are rejected.
+     *
+     * @return symbols of traded instruments.
+     */
+    public List<String> getSymbols() {
+        final List<String> result;
+        if (Objects.isNull(this.symbols) || this.symbols.isEmpty()) {
+            result = List.of(Order.DEFAULT_SYMBOL);
+        } else {
+            result = this.symbols;
+        }
+        return result;
+    }
+
+    /**
+     * Source of counter orders.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    public enum Book {
+
+        /**
+         * Counter order is searched in the database with skip locked.
+         */
+        DATABASE,
+
+        /**
+         * Counter order is chosen by the in-memory order book, which is rebuilt from the database at startup.
+         */
+        IN_MEMORY
+    }
+
+    /**
+     * Order execution mode.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    public enum Mode {
+
+        /**
+         * A pair of orders is marked as being on execution, the execution itself is performed
+         * asynchronously in a separate transaction after the commit.
+         */
+        TWO_PHASE,
+
+        /**
+         * A pair of orders is executed in the transaction which locked them.
+         */
+        INLINE,
+
+        /**
+         * The incoming order is executed against several counter orders in price priority in one
+         * transaction, until it is filled or no longer crosses.
+         */
+        SWEEP
+    }
+
+    /**
+     * Behavior when the order execution queue is full.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    public enum OverloadPolicy {
+
+        /**
+         * The producer waits until there is free space in the queue.
+         */
+        BLOCK,
+
+        /**
+         * The order is not queued, it is sent for execution later by the periodic sweep.
+         */
+        DROP,
+
+        /**
+         * The order is not queued, as with DROP, and creation of new orders is rejected
+         * until there is free space in the queue.
+         */
+        REJECT
+    }
+
+    /**
+     * Behavior when all attempts to execute an order execution failed.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    public enum RetryExhaustedPolicy {
+
+        /**
+         * The order execution is executed again by the next run of the recovery.
+         */
+        REQUEUE,
+
+        /**
+         * The order execution is put to the dead letter list and is skipped by the recovery
+         * until the list is released.
+         */
+        DEAD_LETTER
+    }
 }
@@ -46,6 +46,7 @@ import ru.yakovlev.entities.validators.BeforeCreateOrderValidator;
 @AllArgsConstructor
 public class RestConfig implements RepositoryRestConfigurer {
     private final Validator validator;
+    private final OrderExecutionProperties orderExecutionProperties;
 
     @Override
     public void configureRepositoryRestConfiguration(RepositoryRestConfiguration config, CorsRegistry cors) {
@@ -62,7 +63,8 @@ public class RestConfig implements RepositoryRestConfigurer {
 
     @Override
     public void configureValidatingRepositoryEventListener(ValidatingRepositoryEventListener validatingListener) {
-        validatingListener.addValidator("beforeCreate", new BeforeCreateOrderValidator());
+        validatingListener.addValidator(
+                "beforeCreate", new BeforeCreateOrderValidator(this.orderExecutionProperties.getSymbols()));
         validatingListener.addValidator("beforeCreate", this.validator);
         validatingListener.addValidator("beforeSave", this.validator);
     }
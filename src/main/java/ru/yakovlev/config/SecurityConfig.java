@@ -24,6 +24,7 @@
 
 package ru.yakovlev.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Map;
 import lombok.val;
 import org.springframework.context.annotation.Bean;
@@ -31,15 +32,20 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.JdbcUserDetailsManager;
 import org.springframework.security.provisioning.UserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import ru.yakovlev.service.security.AuthenticationCache;
+import ru.yakovlev.service.security.AuthenticationMemo;
+import ru.yakovlev.service.security.CachedCredentialsUserDetailsManager;
+import ru.yakovlev.service.security.CachingAuthenticationProvider;
 
 /**
  * Spring security configuration.
@@ -64,14 +70,38 @@ public class SecurityConfig {
         http.authorizeRequests().antMatchers("/orders/sendToExecution").hasRole("ADMIN");
         http.authorizeRequests().antMatchers("/orders/addWorkersForOrderExecution").hasRole("ADMIN");
         http.authorizeRequests().antMatchers("/orders/createOrders").hasAuthority("BATCH_ORDER_CREATION");
+        http.authorizeRequests().antMatchers("/orders/execution-dead-letters/**").hasRole("ADMIN");
+        http.authorizeRequests().antMatchers("/actuator/**").hasRole("ADMIN");
         http.authorizeRequests().anyRequest().authenticated().and().httpBasic();
         http.csrf().csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse());
         return http.build();
     }
 
     @Bean
-    UserDetailsManager userDetailsManager(JdbcTemplate template) {
-        final var jdbcUserDetailsManager = new JdbcUserDetailsManager();
+    AuthenticationCache authenticationCache(AuthenticationCacheProperties properties, MeterRegistry meterRegistry) {
+        return new AuthenticationCache(properties.getMaximumSize(), properties.getExpireAfterWrite(), meterRegistry);
+    }
+
+    @Bean
+    AuthenticationProvider authenticationProvider(UserDetailsManager userDetailsManager,
+                                                  PasswordEncoder passwordEncoder,
+                                                  AuthenticationCache authenticationCache,
+                                                  AuthenticationCacheProperties properties) {
+        val daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(userDetailsManager);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        final AuthenticationProvider result;
+        if (properties.getEnabled()) {
+            result = new CachingAuthenticationProvider(daoAuthenticationProvider, authenticationCache);
+        } else {
+            result = daoAuthenticationProvider;
+        }
+        return result;
+    }
+
+    @Bean
+    UserDetailsManager userDetailsManager(JdbcTemplate template, AuthenticationCache authenticationCache) {
+        final var jdbcUserDetailsManager = new CachedCredentialsUserDetailsManager(authenticationCache);
         jdbcUserDetailsManager.setJdbcTemplate(template);
         jdbcUserDetailsManager.setEnableGroups(true);
         return jdbcUserDetailsManager;
@@ -84,4 +114,9 @@ public class SecurityConfig {
         return roleHierarchy;
     }
 
+    @Bean
+    AuthenticationMemo authenticationMemo(RoleHierarchy roleHierarchy, MeterRegistry meterRegistry) {
+        return new AuthenticationMemo(roleHierarchy, meterRegistry);
+    }
+
 }
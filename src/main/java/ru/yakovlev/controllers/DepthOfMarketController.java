@@ -3,18 +3,34 @@ package ru.yakovlev.controllers;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 import lombok.AllArgsConstructor;
 import lombok.Value;
 import lombok.val;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.RepresentationModel;
 import org.springframework.hateoas.mediatype.hal.HalModelBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yakovlev.config.DepthOfMarketProperties;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.DepthOfMarketQuery;
 import ru.yakovlev.model.PriceLevelInfo;
 import ru.yakovlev.repositories.OrderRepository;
+import ru.yakovlev.service.DepthOfMarketCache;
+import ru.yakovlev.service.DepthOfMarketStream;
+import ru.yakovlev.service.OrderLanes;
 
 /**
  * Depth of market controller.
@@ -25,20 +41,94 @@ import ru.yakovlev.repositories.OrderRepository;
 @RestController
 @AllArgsConstructor
 public class DepthOfMarketController {
+    private final DepthOfMarketCache depthOfMarketCache;
+    private final DepthOfMarketStream depthOfMarketStream;
+    private final OrderLanes orderLanes;
     private final OrderRepository orderRepository;
+    private final DepthOfMarketProperties depthOfMarketProperties;
 
     /**
-     * Returns a representation of the resource.
+     * Returns a representation of the resource. Without parameters all price levels are returned ordered by
+     * price, otherwise the requested part of buy price levels and then sell price levels, best price first.
+     * Price levels are taken from the in-memory depth of market or, if it is configured as the source, from
+     * the price_level table, so all application instances return the same depth of market. With the in-memory
+     * source its version is returned as the entity tag, a request with the matching "If-None-Match" header
+     * gets "Not Modified" without building the representation. With the table source no entity tag is
+     * returned, because the version of the in-memory depth of market differs between instances.
      *
-     * @return a representation of the resource.
+     * @param symbol symbol of the instrument.
+     * @param depth maximum number of price levels per side.
+     * @param minPrice minimum price, inclusive.
+     * @param maxPrice maximum price, inclusive.
+     * @param tick price step to group adjacent price levels.
+     * @param request current request.
+     * @return a representation of the resource, "Not Modified" or "Bad Request" if parameters are not valid.
      */
     @GetMapping("/depth-of-market")
-    public ResponseEntity<RepresentationModel<CollectionModel<PriceLevelInfo>>> depthOfMarket() {
-        val builder = HalModelBuilder.halModelOf(new DepthOfMarket(this.orderRepository.depthOfMarket()));
-        val self = linkTo(methodOn(DepthOfMarketController.class).depthOfMarket()).withSelfRel();
-        builder.link(self);
-        val model = builder.<CollectionModel<PriceLevelInfo>>build();
-        return ResponseEntity.ok(model);
+    public ResponseEntity<RepresentationModel<CollectionModel<PriceLevelInfo>>> depthOfMarket(
+            @RequestParam(defaultValue = Order.DEFAULT_SYMBOL) final String symbol,
+            @RequestParam(required = false) final Integer depth,
+            @RequestParam(required = false) final BigDecimal minPrice,
+            @RequestParam(required = false) final BigDecimal maxPrice,
+            @RequestParam(required = false) final BigDecimal tick,
+            final WebRequest request) {
+        final ResponseEntity<RepresentationModel<CollectionModel<PriceLevelInfo>>> result;
+        final DepthOfMarketQuery query = new DepthOfMarketQuery(depth, minPrice, maxPrice, tick);
+        if (!isValid(query)) {
+            result = ResponseEntity.badRequest().build();
+        } else if (this.isCached() && request.checkNotModified(this.depthOfMarketCache.version(symbol))) {
+            result = ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        } else {
+            final List<PriceLevelInfo> priceLevels;
+            if (Stream.of(depth, minPrice, maxPrice, tick).allMatch(Objects::isNull)) {
+                if (this.isCached()) {
+                    priceLevels = this.depthOfMarketCache.priceLevels(symbol);
+                } else {
+                    priceLevels = this.orderRepository.depthOfMarket(symbol);
+                }
+            } else if (this.isCached()) {
+                priceLevels = new ArrayList<>(this.depthOfMarketCache.priceLevels(symbol, OrderType.BUY, query));
+                priceLevels.addAll(this.depthOfMarketCache.priceLevels(symbol, OrderType.SELL, query));
+            } else {
+                priceLevels = new ArrayList<>(this.orderRepository.depthOfMarket(symbol, OrderType.BUY, query));
+                priceLevels.addAll(this.orderRepository.depthOfMarket(symbol, OrderType.SELL, query));
+            }
+            val builder = HalModelBuilder.halModelOf(new DepthOfMarket(priceLevels));
+            val self = linkTo(methodOn(DepthOfMarketController.class)
+                    .depthOfMarket(symbol, depth, minPrice, maxPrice, tick, null)).withSelfRel();
+            builder.link(self);
+            result = ResponseEntity.ok(builder.<CollectionModel<PriceLevelInfo>>build());
+        }
+        return result;
+    }
+
+    /**
+     * Opens a stream of server-sent events with the snapshot of the depth of market and its changes.
+     *
+     * @param symbol symbol of the instrument.
+     * @return event stream or "Bad Request" if the symbol is not traded.
+     */
+    @GetMapping(path = "/depth-of-market/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> depthOfMarketStream(
+            @RequestParam(defaultValue = Order.DEFAULT_SYMBOL) final String symbol) {
+        final ResponseEntity<SseEmitter> result;
+        if (this.orderLanes.contains(symbol)) {
+            result = ResponseEntity.ok(this.depthOfMarketStream.subscribe(symbol));
+        } else {
+            result = ResponseEntity.badRequest().build();
+        }
+        return result;
+    }
+
+    private boolean isCached() {
+        return DepthOfMarketProperties.Source.CACHE.equals(this.depthOfMarketProperties.getSource());
+    }
+
+    private static boolean isValid(final DepthOfMarketQuery query) {
+        return (Objects.isNull(query.getDepth()) || query.getDepth() > 0)
+                && (Objects.isNull(query.getTick()) || query.getTick().signum() > 0)
+                && (Objects.isNull(query.getMinPrice()) || Objects.isNull(query.getMaxPrice())
+                || query.getMinPrice().compareTo(query.getMaxPrice()) <= 0);
     }
 
     @Value
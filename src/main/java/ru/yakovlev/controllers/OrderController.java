@@ -24,13 +24,52 @@
 
 package ru.yakovlev.controllers;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import javax.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import lombok.val;
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.MessageSourceAccessor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.rest.core.RepositoryConstraintViolationException;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
 import org.springframework.data.rest.webmvc.RepositoryRestController;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.data.rest.webmvc.support.RepositoryConstraintViolationExceptionMessage;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.yakovlev.config.OrderExecutionProperties;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.validators.BeforeCreateOrderValidator;
+import ru.yakovlev.repositories.OrderRepository;
+import ru.yakovlev.service.OrderExecutionQueueOverflowException;
 import ru.yakovlev.service.OrdersService;
 
 /**
@@ -42,7 +81,111 @@ import ru.yakovlev.service.OrdersService;
 @RepositoryRestController
 @AllArgsConstructor
 public class OrderController {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final OrdersService ordersService;
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final OrderExecutionProperties orderExecutionProperties;
+    private final MessageSource messageSource;
+
+    /**
+     * Returns the order with its version as the entity tag. If the request has the "If-None-Match" header,
+     * only the version of the order is read and "Not Modified" is returned while it matches the header.
+     *
+     * @param id order id.
+     * @param request current request.
+     * @param assembler order representation assembler.
+     * @return the order or "Not Modified" http status.
+     */
+    @GetMapping("/orders/{id}")
+    public ResponseEntity<PersistentEntityResource> order(@PathVariable final Long id, final WebRequest request,
+                                                          final PersistentEntityResourceAssembler assembler) {
+        ResponseEntity<PersistentEntityResource> result = null;
+        if (Objects.nonNull(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            val version = this.ordersService.version(id);
+            if (version.isPresent() && request.checkNotModified(String.valueOf(version.get()))) {
+                result = ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+        }
+        if (Objects.isNull(result)) {
+            val order = this.orderRepository.findById(id).orElseThrow(ResourceNotFoundException::new);
+            result = ResponseEntity.ok().eTag(String.valueOf(order.getVersion())).body(assembler.toFullResource(order));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a page of orders readable by the user that follows the cursor. Orders are sorted by id and
+     * are read from the id of the last order of the previous page, so the cost of a page does not depend
+     * on its position, the total number of orders is not counted. The "next" link contains the cursor
+     * of the next page and is absent on the last page.
+     *
+     * @param cursor cursor from the "next" link of the previous page, empty for the first page.
+     * @param size page size.
+     * @param assembler order representation assembler.
+     * @return orders of the page or "Bad Request" if the cursor or the size are not valid.
+     */
+    @GetMapping(path = "/orders", params = "cursor")
+    public ResponseEntity<CollectionModel<PersistentEntityResource>> orders(
+            @RequestParam final String cursor, @RequestParam(defaultValue = "20") final int size,
+            final PersistentEntityResourceAssembler assembler) {
+        final Optional<Long> lastId = decodeCursor(cursor);
+        final ResponseEntity<CollectionModel<PersistentEntityResource>> result;
+        if (lastId.isEmpty() || size < 1 || size > MAX_PAGE_SIZE) {
+            result = ResponseEntity.badRequest().build();
+        } else {
+            val orders = this.orderRepository.findAllAfter(lastId.get(), PageRequest.of(0, size + 1));
+            final List<PersistentEntityResource> resources = new ArrayList<>(size);
+            orders.stream().limit(size).map(assembler::toModel).forEach(resources::add);
+            val self = ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString();
+            val model = CollectionModel.of(resources, Link.of(self));
+            if (orders.size() > size) {
+                val next = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("cursor", encodeCursor(orders.get(size - 1).getId()))
+                        .build().toUriString();
+                model.add(Link.of(next, IanaLinkRelations.NEXT));
+            }
+            result = ResponseEntity.ok(model);
+        }
+        return result;
+    }
+
+    /**
+     * Creates orders of a JSON array or of newline delimited JSON objects in one transaction. Orders are
+     * validated as orders created by "POST /orders", no order is created if any of them is not valid.
+     *
+     * @param body JSON array or newline delimited JSON objects of at most 1000 orders.
+     * @param assembler order representation assembler.
+     * @return created orders, "Bad Request" with validation errors of orders "orders[index]" or
+     *     "Bad Request" if the body is not readable or the number of orders is out of range.
+     * @throws IOException if the body cannot be read.
+     * @throws OrderExecutionQueueOverflowException if the order execution queue is full and new orders are rejected.
+     */
+    @PostMapping(path = "/orders/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Object> createBatch(final InputStream body, final PersistentEntityResourceAssembler assembler)
+            throws IOException, OrderExecutionQueueOverflowException {
+        final Optional<List<Order>> orders = this.readOrders(body);
+        final ResponseEntity<Object> result;
+        if (orders.isEmpty() || orders.get().isEmpty() || orders.get().size() > MAX_BATCH_SIZE) {
+            result = ResponseEntity.badRequest().build();
+        } else {
+            val errors = this.validate(orders.get());
+            if (errors.hasErrors()) {
+                result = ResponseEntity.badRequest().body(new RepositoryConstraintViolationExceptionMessage(
+                        new RepositoryConstraintViolationException(errors),
+                        new MessageSourceAccessor(this.messageSource)));
+            } else {
+                final List<PersistentEntityResource> resources = new ArrayList<>(orders.get().size());
+                this.ordersService.createBatch(orders.get()).stream().map(assembler::toModel).forEach(resources::add);
+                result = ResponseEntity.status(HttpStatus.CREATED).body(CollectionModel.of(resources));
+            }
+        }
+        return result;
+    }
 
     /**
      * Cancels further execution of the order if it has not been executed yet.
@@ -59,4 +202,50 @@ public class OrderController {
         }
         return ResponseEntity.noContent().build();
     }
+
+    private Optional<List<Order>> readOrders(final InputStream body) throws IOException {
+        final List<Order> orders = new ArrayList<>();
+        Optional<List<Order>> result = Optional.of(orders);
+        try (MappingIterator<Order> iterator = this.objectMapper.readerFor(Order.class).readValues(body)) {
+            while (orders.size() <= MAX_BATCH_SIZE && iterator.hasNextValue()) {
+                orders.add(iterator.nextValue());
+            }
+        } catch (JsonProcessingException ex) {
+            result = Optional.empty();
+        }
+        return result;
+    }
+
+    private Errors validate(final List<Order> orders) {
+        final List<Validator> validators = List.of(
+                new BeforeCreateOrderValidator(this.orderExecutionProperties.getSymbols()), this.validator);
+        val result = new MapBindingResult(new HashMap<>(), "orders");
+        for (int i = 0; i < orders.size(); i++) {
+            val errors = new BeanPropertyBindingResult(orders.get(i), "orders[" + i + "]");
+            for (val orderValidator : validators) {
+                orderValidator.validate(orders.get(i), errors);
+            }
+            errors.getAllErrors().forEach(result::addError);
+        }
+        return result;
+    }
+
+    private static String encodeCursor(final Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Optional<Long> decodeCursor(final String cursor) {
+        Optional<Long> result;
+        if (cursor.isEmpty()) {
+            result = Optional.of(0L);
+        } else {
+            try {
+                result = Optional.of(Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor),
+                        StandardCharsets.UTF_8)));
+            } catch (IllegalArgumentException ex) {
+                result = Optional.empty();
+            }
+        }
+        return result;
+    }
 }
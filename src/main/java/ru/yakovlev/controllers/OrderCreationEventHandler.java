@@ -0,0 +1,33 @@
+package ru.yakovlev.controllers;
+
+import lombok.AllArgsConstructor;
+import org.springframework.data.rest.core.annotation.HandleBeforeCreate;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.service.OrderExecutionQueueOverflowException;
+import ru.yakovlev.service.OrdersForExecution;
+
+/**
+ * Handler of order creation through the REST API.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Component
+@RepositoryEventHandler
+@AllArgsConstructor
+public class OrderCreationEventHandler {
+    private final OrdersForExecution ordersForExecution;
+
+    /**
+     * Rejects the order if the order execution queue is full.
+     *
+     * @param order created order.
+     * @throws OrderExecutionQueueOverflowException if the order execution queue is full and new orders are rejected.
+     */
+    @HandleBeforeCreate
+    public void beforeCreate(final Order order) throws OrderExecutionQueueOverflowException {
+        this.ordersForExecution.checkCapacity(order);
+    }
+}
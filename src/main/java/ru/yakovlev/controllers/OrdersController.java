@@ -24,12 +24,18 @@
 
 package ru.yakovlev.controllers;
 
+import java.util.Objects;
 import lombok.AllArgsConstructor;
 import org.springframework.data.rest.webmvc.RepositoryRestController;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.service.OrderExecutionProcess;
+import ru.yakovlev.service.OrderExecutionQueueOverflowException;
+import ru.yakovlev.service.OrderLanes;
 import ru.yakovlev.service.OrdersForExecution;
 import ru.yakovlev.service.OrdersService;
 
@@ -44,29 +50,33 @@ import ru.yakovlev.service.OrdersService;
 public class OrdersController {
     private final OrdersForExecution ordersForExecution;
     private final OrdersService ordersService;
+    private final OrderExecutionProcess orderExecutionProcess;
+    private final OrderLanes orderLanes;
 
     /**
      * Sends orders for execution that can be executed.
      *
      * @param limit order limit.
      * @return number of orders sent.
+     * @throws InterruptedException if the thread was interrupted.
      */
     @PostMapping("/orders/send-to-execution")
-    public ResponseEntity<Object> sendToExecution(@RequestParam(defaultValue = "100") int limit) {
+    public ResponseEntity<Object> sendToExecution(@RequestParam(defaultValue = "100") int limit)
+            throws InterruptedException {
         final var sentOrders = this.ordersForExecution.sendToExecution(limit);
         return ResponseEntity.ok(sentOrders);
     }
 
     /**
-     * Launches threads that execute orders.
+     * Launches threads that execute orders. Workers are distributed among lanes in turn.
      *
-     * @param workers number of threads to runю
+     * @param workers number of threads to run
      * @return "No Content" http status.
      */
     @PostMapping("/orders/add-workers-for-order-execution")
     public ResponseEntity<Object> addWorkersForOrderExecution(@RequestParam(defaultValue = "1") int workers) {
         for (int i = 0; i < workers; i++) {
-            this.ordersForExecution.startExecutionWorker();
+            this.ordersForExecution.startExecutionWorker(this.ordersForExecution.nextLane());
         }
         return ResponseEntity.noContent().build();
     }
@@ -75,14 +85,42 @@ public class OrdersController {
      * Launches the process of batch creation of orders according to the provided parameters.
      *
      * @param params parameters
-     * @return "No Content" http status.
+     * @return "No Content" http status or "Bad Request" if the symbol is not traded.
      * @throws InterruptedException if the thread was interrupted.
+     * @throws OrderExecutionQueueOverflowException if the order execution queue is full and new orders are rejected.
      */
     @PostMapping("/orders/create-orders")
     public ResponseEntity<Object> createOrders(@RequestBody OrdersService.CreateOrdersParams params)
-            throws InterruptedException {
-        this.ordersService.createOrders(params);
-        return ResponseEntity.noContent().build();
+            throws InterruptedException, OrderExecutionQueueOverflowException {
+        final ResponseEntity<Object> result;
+        if (this.orderLanes.contains(Objects.requireNonNullElse(params.getSymbol(), Order.DEFAULT_SYMBOL))) {
+            this.ordersForExecution.checkCapacity();
+            this.ordersService.createOrders(params);
+            result = ResponseEntity.noContent().build();
+        } else {
+            result = ResponseEntity.badRequest().build();
+        }
+        return result;
+    }
+
+    /**
+     * Returns ids of order executions for which all attempts failed.
+     *
+     * @return order execution ids in the dead letter list.
+     */
+    @GetMapping("/orders/execution-dead-letters")
+    public ResponseEntity<Object> executionDeadLetters() {
+        return ResponseEntity.ok(this.orderExecutionProcess.deadLetters());
+    }
+
+    /**
+     * Clears the dead letter list, the order executions are executed again by the recovery.
+     *
+     * @return number of released order executions.
+     */
+    @PostMapping("/orders/execution-dead-letters/release")
+    public ResponseEntity<Object> releaseExecutionDeadLetters() {
+        return ResponseEntity.ok(this.orderExecutionProcess.releaseDeadLetters());
     }
 
 }
@@ -25,8 +25,11 @@
 package ru.yakovlev.entities;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
@@ -37,12 +40,15 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.Version;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -61,15 +67,26 @@ import ru.yakovlev.entities.listeners.OrderListener;
 @EntityListeners(OrderListener.class)
 @AllArgsConstructor
 @NoArgsConstructor
+@Builder
 @Getter
 @ToString
 public class Order {
 
+    /**
+     * Symbol of orders created without a symbol.
+     */
+    public static final String DEFAULT_SYMBOL = "DEFAULT";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_execution_seq_generator")
-    @SequenceGenerator(name = "order_execution_seq_generator", sequenceName = "order_execution_id_seq")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq_generator")
+    @SequenceGenerator(name = "order_seq_generator", sequenceName = "order_id_seq")
     private Long id;
 
+    @NotNull
+    @Size(min = 1, max = 16)
+    @Column(nullable = false, updatable = false, length = 16)
+    private String symbol;
+
     @NotNull
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, updatable = false)
@@ -108,14 +125,47 @@ public class Order {
     @Setter
     @Column(nullable = false)
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
-    private long quantityLeftover = quantity;
+    private long quantityLeftover;
 
     @Version
     private Integer version;
 
-    @JsonCreator
+    @NotNull
+    @Column(nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant createdAt;
+
+    @Setter
+    @Column(updatable = false, length = 100)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String owner;
+
+    /**
+     * Leftover quantity of the order that is applied to the depth of market, null if the order is not
+     * in the depth of market. It is set when the order is loaded and after each change is applied.
+     */
+    @Setter
+    @Transient
+    @JsonIgnore
+    private Long depthOfMarketLeftover;
+
     public Order(@NotNull final OrderType type, @DecimalMin("0") @NotNull final BigDecimal price,
                  @Min(0) @NotNull final long quantity) {
-        this(null, type, price, quantity, false, false, false, quantity, null);
+        this(DEFAULT_SYMBOL, type, price, quantity);
+    }
+
+    /**
+     * Creates a new order of the given symbol, the default symbol is used if it is not specified.
+     *
+     * @param symbol symbol of the traded instrument.
+     * @param type order type.
+     * @param price order price.
+     * @param quantity order quantity.
+     */
+    @JsonCreator
+    public Order(final String symbol, @NotNull final OrderType type,
+                 @DecimalMin("0") @NotNull final BigDecimal price, @Min(0) @NotNull final long quantity) {
+        this(null, Objects.requireNonNullElse(symbol, DEFAULT_SYMBOL), type, price, quantity,
+                false, false, false, quantity, null, Instant.now(), null, null);
     }
 }
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Configurable;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yakovlev.config.OrderExecutionProperties;
 import ru.yakovlev.entities.OrderExecution;
 import ru.yakovlev.service.OrderExecutionProcess;
 
@@ -43,20 +44,33 @@ public class OrderExecutionListener {
     public static class Listener {
         @Autowired
         private OrderExecutionProcess orderExecutionProcess;
+        @Autowired
+        private OrderExecutionProperties orderExecutionProperties;
 
         /**
-         * Handle after persist event. Starts the execution process.
+         * Handle after persist event. Starts the execution process, if the order execution
+         * was not executed in the transaction which created it.
          *
          * @param orderExecution order execution.
          */
         public void afterPersist(OrderExecution orderExecution) {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @SneakyThrows
-                @Override
-                public void afterCommit() {
-                    orderExecutionProcess.execute(orderExecution);
-                }
-            });
+            if (OrderExecutionProperties.Mode.TWO_PHASE.equals(this.orderExecutionProperties.getMode())) {
+                this.orderExecutionProcess.markPending(orderExecution);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @SneakyThrows
+                    @Override
+                    public void afterCommit() {
+                        orderExecutionProcess.execute(orderExecution);
+                    }
+
+                    @Override
+                    public void afterCompletion(final int status) {
+                        if (status != STATUS_COMMITTED) {
+                            orderExecutionProcess.unmarkPending(orderExecution);
+                        }
+                    }
+                });
+            }
         }
 
     }
@@ -24,16 +24,27 @@
 
 package ru.yakovlev.entities.listeners;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import javax.persistence.PostLoad;
 import javax.persistence.PostPersist;
 import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
 import lombok.NoArgsConstructor;
-import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Configurable;
+import org.springframework.lang.Nullable;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.yakovlev.entities.Order;
+import ru.yakovlev.service.DepthOfMarketCache;
 import ru.yakovlev.service.OrdersForExecution;
 import ru.yakovlev.service.security.SecurityService;
 
@@ -47,6 +58,12 @@ import ru.yakovlev.service.security.SecurityService;
 public class OrderListener {
     private Listener listener;
 
+    @PrePersist
+    public void beforePersist(final Order order) {
+        this.init();
+        this.listener.beforePersist(order);
+    }
+
     @PostPersist
     public void afterPersist(final Order order) {
         this.init();
@@ -59,6 +76,11 @@ public class OrderListener {
         this.listener.afterUpdate(order);
     }
 
+    @PostLoad
+    public void afterLoad(final Order order) {
+        DepthOfMarketCache.loaded(order);
+    }
+
     private void init() {
         if (Objects.isNull(this.listener)) {
             this.listener = new Listener();
@@ -78,24 +100,99 @@ public class OrderListener {
         @Autowired
         private SecurityService securityService;
 
+        @Autowired
+        private DepthOfMarketCache depthOfMarketCache;
+
+        private MeterRegistry meterRegistry;
+        private Timer enqueue;
+        private Timer lifetime;
+
+        /**
+         * Sets the meter registry and registers the order timers once.
+         *
+         * @param meterRegistry meter registry.
+         */
+        @Autowired
+        public void setMeterRegistry(final MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            this.enqueue = Timer.builder("order.enqueue")
+                    .description("Time from persisting a new order to putting it in the execution queue")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.lifetime = Timer.builder("order.lifetime")
+                    .description("Time from order creation to its full execution")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        public void beforePersist(Order order) {
+            order.setOwner(this.securityService.currentUsername());
+        }
+
         public void afterPersist(Order order) {
             this.securityService.createAcl(order);
-            this.notifyOrdersForExecution(order);
+            this.notifyOrdersForExecution(order, Timer.start(this.meterRegistry));
         }
 
         public void afterUpdate(Order order) {
-            this.notifyOrdersForExecution(order);
+            this.notifyOrdersForExecution(order, null);
+        }
+
+        private void notifyOrdersForExecution(Order order, @Nullable Timer.Sample persisted) {
+            this.pendingNotifications().add(new Notification(order, persisted));
         }
 
-        private void notifyOrdersForExecution(Order order) {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @SneakyThrows
-                @Override
-                public void afterCommit() {
-                    ordersForExecution.notify(order);
+        /**
+         * Returns notifications of the current transaction. Orders of a transaction are put in the execution
+         * queues by one synchronization after the commit, so a batch of orders is enqueued at once.
+         */
+        @SuppressWarnings("unchecked")
+        private List<Notification> pendingNotifications() {
+            var result = (List<Notification>) TransactionSynchronizationManager.getResource(Notification.class);
+            if (Objects.isNull(result)) {
+                final List<Notification> notifications = new ArrayList<>();
+                TransactionSynchronizationManager.bindResource(Notification.class, notifications);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        notifyCommitted(notifications);
+                    }
+
+                    @Override
+                    public void afterCompletion(final int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(Notification.class);
+                    }
+                });
+                result = notifications;
+            }
+            return result;
+        }
+
+        private void notifyCommitted(List<Notification> notifications) {
+            for (val notification : notifications) {
+                val order = notification.getOrder();
+                this.depthOfMarketCache.update(order);
+                this.ordersForExecution.notify(order);
+                if (Objects.nonNull(notification.getPersisted())) {
+                    notification.getPersisted().stop(this.enqueue);
                 }
-            });
+                if (order.isFullyExecuted() && !order.isCancelled() && Objects.nonNull(order.getCreatedAt())) {
+                    this.lifetime.record(Duration.between(order.getCreatedAt(), Instant.now()));
+                }
+            }
         }
 
+        /**
+         * Order change to notify about after the commit.
+         *
+         * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+         * @since 0.11.0
+         */
+        @Value
+        private static class Notification {
+            Order order;
+            @Nullable
+            Timer.Sample persisted;
+        }
     }
 }
@@ -24,7 +24,9 @@
 
 package ru.yakovlev.entities.validators;
 
+import java.util.Collection;
 import java.util.Objects;
+import lombok.AllArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.validation.Errors;
@@ -32,12 +34,14 @@ import org.springframework.validation.Validator;
 import ru.yakovlev.entities.Order;
 
 /**
- * A validator that prohibits order changes.
+ * A validator that prohibits order changes and orders of symbols that are not traded.
  *
  * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
  * @since 0.3.0
  */
+@AllArgsConstructor
 public class BeforeCreateOrderValidator implements Validator {
+    private final Collection<String> symbols;
 
     @Override
     public boolean supports(@Nullable final Class<?> clazz) {
@@ -50,5 +54,8 @@ public class BeforeCreateOrderValidator implements Validator {
         if (Objects.nonNull(order.getId())) {
             errors.rejectValue("id", "order.id.isPresent");
         }
+        if (!this.symbols.contains(order.getSymbol())) {
+            errors.rejectValue("symbol", "order.symbol.unknown");
+        }
     }
 }
@@ -0,0 +1,20 @@
+package ru.yakovlev.model;
+
+import java.math.BigDecimal;
+import lombok.Value;
+import ru.yakovlev.entities.embedded.OrderType;
+
+/**
+ * Price level of a symbol in the depth of market aggregated from active orders.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Value
+public class DepthOfMarketEntry {
+    String symbol;
+    OrderType type;
+    BigDecimal price;
+    Long ordersCount;
+    Long overallQuantity;
+}
@@ -0,0 +1,19 @@
+package ru.yakovlev.model;
+
+import java.math.BigDecimal;
+import lombok.Value;
+
+/**
+ * Part of the depth of market to return. Null values are not restricted: depth is the number of price
+ * levels per side, prices are inclusive bounds, adjacent prices are grouped into levels of the tick size.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Value
+public class DepthOfMarketQuery {
+    Integer depth;
+    BigDecimal minPrice;
+    BigDecimal maxPrice;
+    BigDecimal tick;
+}
@@ -0,0 +1,18 @@
+package ru.yakovlev.model;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Snapshot or change of the depth of market. A change contains only changed price levels, a price level
+ * without orders has zero orders count and overall quantity. The sequence number grows with each change
+ * of the depth of market of the symbol.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Value
+public class DepthOfMarketUpdate {
+    long sequence;
+    List<PriceLevelInfo> priceLevels;
+}
@@ -0,0 +1,30 @@
+package ru.yakovlev.model;
+
+import java.math.BigDecimal;
+import lombok.Value;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+
+/**
+ * Order resting in the in-memory order book.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Value
+public class OrderBookEntry {
+    Long id;
+    String symbol;
+    OrderType type;
+    BigDecimal price;
+
+    /**
+     * Creates an entry of the order book for the given order.
+     *
+     * @param order order.
+     * @return order book entry.
+     */
+    public static OrderBookEntry of(final Order order) {
+        return new OrderBookEntry(order.getId(), order.getSymbol(), order.getType(), order.getPrice());
+    }
+}
@@ -0,0 +1,27 @@
+package ru.yakovlev.model;
+
+import lombok.Value;
+
+/**
+ * Quantity leftover of the order compared with the quantity transferred by its executions.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Value
+public class OrderQuantityAudit {
+    Long id;
+    Long quantity;
+    Long quantityLeftover;
+    Long transferredFromOrder;
+    Long transferredToOrder;
+
+    /**
+     * Returns the difference between the quantity leftover and the quantity that was not transferred yet.
+     *
+     * @return zero if the quantity leftover is consistent with transfers.
+     */
+    public long getDrift() {
+        return this.quantityLeftover - (this.quantity - this.transferredFromOrder - this.transferredToOrder);
+    }
+}
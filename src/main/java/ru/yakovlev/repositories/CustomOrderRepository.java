@@ -2,9 +2,15 @@ package ru.yakovlev.repositories;
 
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.lang.Nullable;
 import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.DepthOfMarketQuery;
+import ru.yakovlev.model.OrderBookEntry;
+import ru.yakovlev.model.PriceLevelInfo;
 
 /**
  * Custom order entity repository.
@@ -15,15 +21,48 @@ import ru.yakovlev.entities.Order;
 public interface CustomOrderRepository {
 
     /**
-     * Find all orders that can be sent for execution.
+     * Find all orders readable by the current user: own orders or, for supervisors, all orders.
      *
-     * @param limit maximum number of orders.
-     * @return orders that can be sent for execution.
+     * @return orders.
      */
-    List<Order> findOrdersForExecution(final int limit);
+    List<Order> findAll();
 
     /**
-     * Find a suitable pair for the given order for their further execution.
+     * Find all orders readable by the current user: own orders or, for supervisors, all orders.
+     *
+     * @param sort orders sort.
+     * @return sorted orders.
+     */
+    List<Order> findAll(final Sort sort);
+
+    /**
+     * Find a page of orders readable by the current user: own orders or, for supervisors, all orders.
+     *
+     * @param pageable page request.
+     * @return page of orders.
+     */
+    Page<Order> findAll(final Pageable pageable);
+
+    /**
+     * Find orders readable by the current user that follow the given id, sorted by id.
+     *
+     * @param lastId id of the last order of the previous page.
+     * @param pageable page request, only its offset and size are used.
+     * @return orders.
+     */
+    List<Order> findAllAfter(final Long lastId, final Pageable pageable);
+
+    /**
+     * Find orders that can be sent for execution and follow the given id, sorted by id.
+     *
+     * @param lastId id of the last order of the previous page.
+     * @param limit maximum number of orders, positive.
+     * @return id, type and price of orders that can be sent for execution.
+     */
+    List<OrderBookEntry> findOrderEntriesForExecution(final long lastId, final int limit);
+
+    /**
+     * Find a suitable pair of the same symbol for the given order for their further execution.
      * An explicit lock in the database will be imposed on the found order.
      *
      * @param order order for which you need to find a pair.
@@ -32,4 +71,42 @@ public interface CustomOrderRepository {
      */
     Optional<Order> findOrderForExecutionByOrderWithSkipLocked(final Order order, @Nullable final Sort sort);
 
+    /**
+     * Checks whether a suitable pair of the same symbol for the given order exists, including orders locked
+     * by other transactions.
+     *
+     * @param order order for which you need to find a pair.
+     * @return true, if a pair exists.
+     */
+    boolean existsOrderForExecutionByOrder(final Order order);
+
+    /**
+     * Find price levels of the symbol in the price_level_total view: the price_level table plus changes appended
+     * by the trigger on the order table and not compacted yet.
+     *
+     * @param symbol symbol of the instrument.
+     * @return price levels ordered by price and order type.
+     */
+    List<PriceLevelInfo> depthOfMarket(final String symbol);
+
+    /**
+     * Find the requested part of price levels of one side of the symbol in the price_level_total view.
+     *
+     * @param symbol symbol of the instrument.
+     * @param type side of the depth of market.
+     * @param query requested part of the depth of market.
+     * @return price levels, the highest price first for buy orders and the lowest price first for sell orders.
+     */
+    List<PriceLevelInfo> depthOfMarket(final String symbol, final OrderType type, final DepthOfMarketQuery query);
+
+    /**
+     * Inserts new orders by the PostgreSQL COPY bypassing the persistence context, so entity listeners
+     * are not called. Identifiers are taken from order_id_seq by whole allocations. Must be called within
+     * a transaction.
+     *
+     * @param orders new orders with owners.
+     * @return identifiers of the orders in the order of orders.
+     */
+    List<Long> copyAll(final List<Order> orders);
+
 }
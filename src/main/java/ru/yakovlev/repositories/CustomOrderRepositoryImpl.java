@@ -1,19 +1,32 @@
 package ru.yakovlev.repositories;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import javax.persistence.EntityManager;
 import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import lombok.AllArgsConstructor;
 import org.hibernate.LockOptions;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.lang.Nullable;
 import ru.yakovlev.entities.Order;
 import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.DepthOfMarketQuery;
+import ru.yakovlev.model.OrderBookEntry;
+import ru.yakovlev.model.PriceLevelInfo;
+import ru.yakovlev.service.security.SecurityService;
 
 /**
  * Custom order entity repository implementation.
@@ -23,59 +36,67 @@ import ru.yakovlev.entities.embedded.OrderType;
  */
 @AllArgsConstructor
 public class CustomOrderRepositoryImpl implements CustomOrderRepository {
+    /**
+     * Number of identifiers allocated by one value of order_id_seq, it matches the sequence increment.
+     */
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final List<String> COLUMNS = List.of("id", "symbol", "type", "price", "quantity",
+            "on_execution", "cancelled", "fully_executed", "quantity_leftover", "version", "created_at", "owner");
+
     private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final SecurityService securityService;
+
+    @Override
+    public List<Order> findAll() {
+        return this.findAll(Sort.unsorted());
+    }
+
+    @Override
+    public List<Order> findAll(final Sort sort) {
+        return this.entityManager.createQuery(this.readableOrdersQuery(null, sort)).getResultList();
+    }
+
+    @Override
+    public Page<Order> findAll(final Pageable pageable) {
+        final var query = this.entityManager.createQuery(this.readableOrdersQuery(null, pageable.getSort()));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, this::countReadableOrders);
+    }
+
+    @Override
+    public List<Order> findAllAfter(final Long lastId, final Pageable pageable) {
+        return this.entityManager.createQuery(this.readableOrdersQuery(lastId, Sort.by("id")))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
 
     @Override
-    public List<Order> findOrdersForExecution(final int limit) {
+    public List<OrderBookEntry> findOrderEntriesForExecution(final long lastId, final int limit) {
         return this.entityManager.createQuery(
-                "SELECT o FROM Order AS o "
+                "SELECT new ru.yakovlev.model.OrderBookEntry(o.id, o.symbol, o.type, o.price) FROM Order AS o "
                         + "WHERE o.onExecution = false AND o.cancelled = false AND o.fullyExecuted = false "
                         + "   AND ((o.type = 'BUY' AND o.price >= ("
-                        + "           SELECT min(o.price) FROM Order AS o "
-                        + "           WHERE o.type = 'SELL' AND o.onExecution = false AND o.cancelled = false "
-                        + "               AND o.fullyExecuted = false)) "
+                        + "           SELECT min(c.price) FROM Order AS c "
+                        + "           WHERE c.symbol = o.symbol AND c.type = 'SELL' AND c.onExecution = false "
+                        + "               AND c.cancelled = false AND c.fullyExecuted = false)) "
                         + "       OR (o.type = 'SELL' AND o.price <= ("
-                        + "           SELECT max(o.price) FROM Order AS o "
-                        + "           WHERE o.type = 'BUY' AND o.onExecution = false AND o.cancelled = false "
-                        + "               AND o.fullyExecuted = false)))",
-                Order.class
-        ).setMaxResults(limit).getResultList();
+                        + "           SELECT max(c.price) FROM Order AS c "
+                        + "           WHERE c.symbol = o.symbol AND c.type = 'BUY' AND c.onExecution = false "
+                        + "               AND c.cancelled = false AND c.fullyExecuted = false))) "
+                        + "   AND o.id > :lastId "
+                        + "ORDER BY o.id",
+                OrderBookEntry.class
+        ).setParameter("lastId", lastId).setMaxResults(limit).getResultList();
     }
 
     @Override
     public Optional<Order> findOrderForExecutionByOrderWithSkipLocked(final Order order, @Nullable final Sort sort) {
         try {
-            final var builder = this.entityManager.getCriteriaBuilder();
-            final var query = builder.createQuery(Order.class);
-            final var root = query.from(Order.class);
-            final var onExecutionPredicate = builder.isFalse(root.get("onExecution"));
-            final var cancelledPredicate = builder.isFalse(root.get("cancelled"));
-            final var fullyExecutedPredicate = builder.isFalse(root.get("fullyExecuted"));
-            final Predicate typePredicate;
-            final Predicate pricePredicate;
-            switch (order.getType()) {
-                case BUY:
-                    typePredicate = builder.equal(root.get("type"), OrderType.SELL);
-                    pricePredicate = builder.lessThanOrEqualTo(root.get("price"), order.getPrice());
-                    break;
-                case SELL:
-                    typePredicate = builder.equal(root.get("type"), OrderType.BUY);
-                    pricePredicate = builder.greaterThanOrEqualTo(root.get("price"), order.getPrice());
-                    break;
-                default:
-                    throw new IllegalStateException("Unknown order type " + order.getType());
-            }
-            query.where(
-                    onExecutionPredicate, cancelledPredicate, fullyExecutedPredicate, typePredicate, pricePredicate);
-            final var byId = builder.asc(root.get("id"));
-            if (Objects.nonNull(sort)) {
-                final var listOfOrders = QueryUtils.toOrders(sort, root, builder);
-                listOfOrders.add(byId);
-                query.orderBy(listOfOrders);
-            } else {
-                query.orderBy(byId);
-            }
-            return Optional.of(this.entityManager.createQuery(query)
+            return Optional.of(this.entityManager.createQuery(this.counterOrderQuery(order, sort))
                     .setMaxResults(1)
                     .setLockMode(LockModeType.PESSIMISTIC_WRITE)
                     .setHint("javax.persistence.lock.timeout", LockOptions.SKIP_LOCKED)
@@ -85,4 +106,173 @@ public class CustomOrderRepositoryImpl implements CustomOrderRepository {
         }
     }
 
+    @Override
+    public boolean existsOrderForExecutionByOrder(final Order order) {
+        return !this.entityManager.createQuery(this.counterOrderQuery(order, null))
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    @Override
+    public List<PriceLevelInfo> depthOfMarket(final String symbol) {
+        final List<?> rows = this.entityManager.createNativeQuery(
+                "SELECT price, type, orders_count, overall_quantity FROM price_level_total "
+                        + "WHERE symbol = :symbol "
+                        + "ORDER BY price, type")
+                .setParameter("symbol", symbol)
+                .getResultList();
+        final List<PriceLevelInfo> result = new ArrayList<>(rows.size());
+        for (final Object row : rows) {
+            final Object[] columns = (Object[]) row;
+            result.add(new PriceLevelInfo((BigDecimal) columns[0], OrderType.valueOf((String) columns[1]),
+                    ((Number) columns[2]).longValue(), ((Number) columns[3]).longValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<PriceLevelInfo> depthOfMarket(final String symbol, final OrderType type,
+                                              final DepthOfMarketQuery query) {
+        final String level;
+        final String direction;
+        if (Objects.isNull(query.getTick())) {
+            level = "price";
+        } else if (OrderType.BUY.equals(type)) {
+            level = "FLOOR(price / :tick) * :tick";
+        } else {
+            level = "CEIL(price / :tick) * :tick";
+        }
+        if (OrderType.BUY.equals(type)) {
+            direction = " DESC";
+        } else {
+            direction = "";
+        }
+        final StringBuilder sql = new StringBuilder(256)
+                .append("SELECT ").append(level).append(", SUM(orders_count), SUM(overall_quantity) ")
+                .append("FROM price_level_total WHERE symbol = :symbol AND type = :type ");
+        if (Objects.nonNull(query.getMinPrice())) {
+            sql.append("AND price >= :minPrice ");
+        }
+        if (Objects.nonNull(query.getMaxPrice())) {
+            sql.append("AND price <= :maxPrice ");
+        }
+        sql.append("GROUP BY 1 ORDER BY 1").append(direction);
+        final var nativeQuery = this.entityManager.createNativeQuery(sql.toString())
+                .setParameter("symbol", symbol)
+                .setParameter("type", type.name());
+        if (Objects.nonNull(query.getTick())) {
+            nativeQuery.setParameter("tick", query.getTick());
+        }
+        if (Objects.nonNull(query.getMinPrice())) {
+            nativeQuery.setParameter("minPrice", query.getMinPrice());
+        }
+        if (Objects.nonNull(query.getMaxPrice())) {
+            nativeQuery.setParameter("maxPrice", query.getMaxPrice());
+        }
+        if (Objects.nonNull(query.getDepth())) {
+            nativeQuery.setMaxResults(query.getDepth());
+        }
+        final List<?> rows = nativeQuery.getResultList();
+        final List<PriceLevelInfo> result = new ArrayList<>(rows.size());
+        for (final Object row : rows) {
+            final Object[] columns = (Object[]) row;
+            result.add(new PriceLevelInfo((BigDecimal) columns[0], type,
+                    ((Number) columns[1]).longValue(), ((Number) columns[2]).longValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> copyAll(final List<Order> orders) {
+        final List<Long> allocations = this.jdbcTemplate.queryForList(
+                "SELECT nextval('order_id_seq') FROM generate_series(1, ?)", Long.class,
+                (orders.size() + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE);
+        final List<Long> result = new ArrayList<>(orders.size());
+        final List<Object[]> rows = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            final Long id = allocations.get(i / ID_ALLOCATION_SIZE) + i % ID_ALLOCATION_SIZE;
+            final Order order = orders.get(i);
+            result.add(id);
+            rows.add(new Object[] {id, order.getSymbol(), order.getType(), order.getPrice(), order.getQuantity(),
+                order.isOnExecution(), order.isCancelled(), order.isFullyExecuted(), order.getQuantityLeftover(),
+                Objects.requireNonNullElse(order.getVersion(), 0), order.getCreatedAt(), order.getOwner()});
+        }
+        PostgresCopy.copyIn(this.jdbcTemplate, "\"order\"", COLUMNS, rows);
+        return result;
+    }
+
+    private CriteriaQuery<Order> readableOrdersQuery(@Nullable final Long lastId, final Sort sort) {
+        final var builder = this.entityManager.getCriteriaBuilder();
+        final var query = builder.createQuery(Order.class);
+        final var root = query.from(Order.class);
+        final var predicates = this.readablePredicates(builder, root);
+        if (Objects.nonNull(lastId)) {
+            predicates.add(builder.greaterThan(root.get("id"), lastId));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        return query;
+    }
+
+    private long countReadableOrders() {
+        final var builder = this.entityManager.getCriteriaBuilder();
+        final var query = builder.createQuery(Long.class);
+        final var root = query.from(Order.class);
+        query.select(builder.count(root)).where(this.readablePredicates(builder, root).toArray(new Predicate[0]));
+        return this.entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Predicates of orders readable by the current user. Access control lists of orders grant reading to
+     * their owners and to supervisors, so supervisors read all orders and other users read own orders by
+     * the (owner, id) index. The query is chosen before it is sent, so each of them has its own plan.
+     */
+    private List<Predicate> readablePredicates(final CriteriaBuilder builder, final Root<Order> root) {
+        final List<Predicate> result = new ArrayList<>(2);
+        if (!this.securityService.isSupervisor()) {
+            final var owner = this.securityService.currentUsername();
+            if (Objects.isNull(owner)) {
+                result.add(builder.disjunction());
+            } else {
+                result.add(builder.equal(root.get("owner"), owner));
+            }
+        }
+        return result;
+    }
+
+    private CriteriaQuery<Order> counterOrderQuery(final Order order, @Nullable final Sort sort) {
+        final var builder = this.entityManager.getCriteriaBuilder();
+        final var query = builder.createQuery(Order.class);
+        final var root = query.from(Order.class);
+        final var onExecutionPredicate = builder.isFalse(root.get("onExecution"));
+        final var cancelledPredicate = builder.isFalse(root.get("cancelled"));
+        final var fullyExecutedPredicate = builder.isFalse(root.get("fullyExecuted"));
+        final var symbolPredicate = builder.equal(root.get("symbol"), order.getSymbol());
+        final Predicate typePredicate;
+        final Predicate pricePredicate;
+        switch (order.getType()) {
+            case BUY:
+                typePredicate = builder.equal(root.get("type"), OrderType.SELL);
+                pricePredicate = builder.lessThanOrEqualTo(root.get("price"), order.getPrice());
+                break;
+            case SELL:
+                typePredicate = builder.equal(root.get("type"), OrderType.BUY);
+                pricePredicate = builder.greaterThanOrEqualTo(root.get("price"), order.getPrice());
+                break;
+            default:
+                throw new IllegalStateException("Unknown order type " + order.getType());
+        }
+        query.where(symbolPredicate, onExecutionPredicate, cancelledPredicate, fullyExecutedPredicate,
+                typePredicate, pricePredicate);
+        final var byId = builder.asc(root.get("id"));
+        if (Objects.nonNull(sort)) {
+            final var listOfOrders = QueryUtils.toOrders(sort, root, builder);
+            listOfOrders.add(byId);
+            query.orderBy(listOfOrders);
+        } else {
+            query.orderBy(byId);
+        }
+        return query;
+    }
 }
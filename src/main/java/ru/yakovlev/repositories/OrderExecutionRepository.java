@@ -24,7 +24,10 @@
 
 package ru.yakovlev.repositories;
 
+import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.yakovlev.entities.OrderExecution;
 
 /**
@@ -35,4 +38,17 @@ import ru.yakovlev.entities.OrderExecution;
  */
 public interface OrderExecutionRepository extends JpaRepository<OrderExecution, Long> {
 
+    /**
+     * Find order executions that have not been executed yet. Orders of such executions stay on execution,
+     * so only executions of orders on execution are checked, they are found by a partial index.
+     *
+     * @param lastId order executions with greater id are returned.
+     * @param pageable page request, limits the number of order executions.
+     * @return order executions without transfer ordered by id.
+     */
+    @Query("SELECT e FROM OrderExecution AS e JOIN FETCH e.fromOrder AS f JOIN FETCH e.toOrder "
+            + "WHERE f.onExecution = true AND e.id > :lastId "
+            + "   AND NOT EXISTS (SELECT t FROM Transfer AS t WHERE t.orderExecution = e) "
+            + "ORDER BY e.id")
+    List<OrderExecution> findWithoutTransfer(Long lastId, Pageable pageable);
 }
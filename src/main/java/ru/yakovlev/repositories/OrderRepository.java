@@ -27,17 +27,21 @@ package ru.yakovlev.repositories;
 import java.util.List;
 import java.util.Optional;
 import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yakovlev.entities.Order;
-import ru.yakovlev.model.PriceLevelInfo;
+import ru.yakovlev.model.DepthOfMarketEntry;
+import ru.yakovlev.model.OrderBookEntry;
+import ru.yakovlev.model.OrderQuantityAudit;
 
 /**
  * Order entity repository.
@@ -47,28 +51,7 @@ import ru.yakovlev.model.PriceLevelInfo;
  */
 @RepositoryRestResource
 public interface OrderRepository extends JpaRepository<Order, Long>, CustomOrderRepository {
-    String FIND_ALL_QUERY = "SELECT o FROM Order AS o WHERE EXISTS ("
-            + "    SELECT 1 FROM AclSid As s "
-            + "       JOIN AclEntry AS e ON e.securityId = s "
-            + "       JOIN AclObjectIdentity AS i_parent ON i_parent = e.acl "
-            + "       JOIN AclObjectIdentity AS i ON i = i_parent.parent OR i = i_parent "
-            + "       JOIN AclClass AS c ON i.objectClass = c "
-            + "    WHERE (s.principal = true AND s.securityId = :#{principal.username} "
-            + "           OR s.principal = false AND s.securityId IN :#{@securityService.userAuthorities()}) "
-            + "       AND (MOD(e.mask, 2) = 1 AND e.granting = true OR MOD(e.mask, 2) = 0 AND e.granting = false) "
-            + "       AND c.clazz = 'ru.yakovlev.entities.Order' "
-            + "       AND i.objectIdIdentity = CONCAT('', o.id))";
-
-    @Override
-    @Query(FIND_ALL_QUERY)
-    List<Order> findAll();
-
-    @Override
-    @Query(FIND_ALL_QUERY)
-    List<Order> findAll(Sort sort);
-
     @Override
-    @Query(FIND_ALL_QUERY)
     @RestResource
     Page<Order> findAll(Pageable pageable);
 
@@ -80,17 +63,51 @@ public interface OrderRepository extends JpaRepository<Order, Long>, CustomOrder
     @RestResource
     Order save(Order order);
 
+    @Query("SELECT o.id FROM Order AS o WHERE o.owner = :owner ORDER BY o.id DESC")
+    List<Long> findIdsByOwner(String owner, Pageable pageable);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT o FROM Order AS o "
             + "WHERE o.onExecution = false AND o.cancelled = false AND o.fullyExecuted = false AND o.id = :id")
     Optional<Order> findByIdForExecutionWithLock(Long id);
 
-    @Query("SELECT new ru.yakovlev.model.PriceLevelInfo("
-            + "   o.price, o.type, COUNT(o.id), SUM(o.quantityLeftover)) "
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order AS o "
+            + "WHERE o.onExecution = false AND o.cancelled = false AND o.fullyExecuted = false AND o.id = :id")
+    Optional<Order> findByIdForExecutionWithSkipLocked(Long id);
+
+    @Query("SELECT CASE WHEN COUNT(o) > 0 THEN true ELSE false END FROM Order AS o "
+            + "WHERE o.onExecution = false AND o.cancelled = false AND o.fullyExecuted = false AND o.id = :id")
+    boolean isAvailableForExecution(Long id);
+
+    @Query("SELECT new ru.yakovlev.model.OrderBookEntry(o.id, o.symbol, o.type, o.price) "
+            + "FROM Order AS o "
+            + "WHERE o.onExecution = false AND o.cancelled = false AND o.fullyExecuted = false")
+    List<OrderBookEntry> findOrderBookEntries();
+
+    @Query("SELECT new ru.yakovlev.model.DepthOfMarketEntry(o.symbol, o.type, o.price, COUNT(o), "
+            + "   SUM(o.quantityLeftover)) "
             + "FROM Order AS o "
             + "WHERE o.fullyExecuted = false AND o.cancelled = false "
-            + "GROUP BY o.price, o.type "
-            + "ORDER BY o.price, o.type")
-    List<PriceLevelInfo> depthOfMarket();
+            + "GROUP BY o.symbol, o.type, o.price")
+    List<DepthOfMarketEntry> findDepthOfMarketEntries();
+
+    @Transactional
+    @Query(value = "SELECT price_level_compact()", nativeQuery = true)
+    long compactPriceLevels();
+
+    @Query("SELECT new ru.yakovlev.model.OrderQuantityAudit(o.id, o.quantity, o.quantityLeftover, "
+            + "   (SELECT COALESCE(SUM(t.quantity), 0) FROM Transfer AS t WHERE t.orderExecution.fromOrder = o), "
+            + "   (SELECT COALESCE(SUM(t.quantity), 0) FROM Transfer AS t WHERE t.orderExecution.toOrder = o)) "
+            + "FROM Order AS o "
+            + "WHERE o.id > :lastId "
+            + "ORDER BY o.id")
+    List<OrderQuantityAudit> findQuantityAudits(Long lastId, Pageable pageable);
+
+    long countByOnExecutionTrue();
+
+    @Query("SELECT o.version FROM Order AS o WHERE o.id = :id")
+    Optional<Integer> findVersionById(Long id);
 
 }
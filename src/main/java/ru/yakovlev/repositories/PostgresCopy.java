@@ -0,0 +1,79 @@
+package ru.yakovlev.repositories;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import lombok.val;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+
+/**
+ * Bulk load of rows by PostgreSQL "COPY FROM STDIN" in the text format. Rows are streamed to the server
+ * by the connection of the current transaction, so they are visible to other transactions after its commit.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+public final class PostgresCopy {
+    private static final int BUFFER_SIZE = 65_536;
+
+    private PostgresCopy() {
+    }
+
+    /**
+     * Copies rows to the table.
+     *
+     * @param jdbcOperations JDBC operations of the current transaction.
+     * @param table table name.
+     * @param columns column names in the order of row values.
+     * @param rows rows, a null value is copied as NULL.
+     */
+    public static void copyIn(final JdbcOperations jdbcOperations, final String table, final List<String> columns,
+                              final Iterable<Object[]> rows) {
+        val sql = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN";
+        jdbcOperations.execute((ConnectionCallback<Void>) connection -> {
+            val copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, BUFFER_SIZE);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8))) {
+                for (val row : rows) {
+                    writeRow(writer, row);
+                }
+            } catch (IOException ex) {
+                throw new SQLException("Copying to " + table + " failed", ex);
+            }
+            return null;
+        });
+    }
+
+    private static void writeRow(final Writer writer, final Object[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            writer.write(format(row[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String format(final Object value) {
+        final String result;
+        if (Objects.isNull(value)) {
+            result = "\\N";
+        } else if (value instanceof BigDecimal) {
+            result = ((BigDecimal) value).toPlainString();
+        } else if (value instanceof Enum) {
+            result = ((Enum<?>) value).name();
+        } else {
+            result = value.toString().replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n")
+                    .replace("\r", "\\r");
+        }
+        return result;
+    }
+}
@@ -25,7 +25,6 @@
 package ru.yakovlev.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import ru.yakovlev.entities.Transfer;
 
 /**
@@ -37,13 +36,10 @@ import ru.yakovlev.entities.Transfer;
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
 
     /**
-     * Calculates the executed volume of the given order.
+     * Checks whether the order execution has been executed.
      *
-     * @param orderId order id.
-     * @return executed volume of the given order.
+     * @param orderExecutionId order execution id.
+     * @return true, if there is a transfer for the order execution.
      */
-    @Query("SELECT COALESCE(SUM(t.quantity), 0) FROM Transfer AS t "
-            + "JOIN OrderExecution AS e ON t.orderExecution.id = e.id "
-            + "WHERE e.fromOrder.id = :orderId OR e.toOrder.id = :orderId")
-    Long sumQuantityOfAllTransfersForOrder(Long orderId);
+    boolean existsByOrderExecutionId(Long orderExecutionId);
 }
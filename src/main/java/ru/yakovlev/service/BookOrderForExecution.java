@@ -0,0 +1,88 @@
+package ru.yakovlev.service;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import lombok.val;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.model.OrderBookEntry;
+import ru.yakovlev.repositories.OrderRepository;
+
+/**
+ * An order that can be sent for execution, a pair for it is chosen by the in-memory order book.
+ * Only the chosen orders are locked in the database, the counter order is locked with skip locked,
+ * if it is not available, then the next best order is taken. Skipped orders that are still active
+ * (locked by another execution) are returned to the book, the others are discarded.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@AllArgsConstructor
+public class BookOrderForExecution implements OrderForExecution {
+    private final Long orderId;
+    private final OrderBook orderBook;
+    private final OrderRepository orderRepository;
+    private final OrderPairExecution orderPairExecution;
+    private final Counter counterMisses;
+
+    @Override
+    @Transactional
+    public boolean sendForExecution() {
+        boolean result = false;
+        val optOrder = this.orderRepository.findByIdForExecutionWithLock(this.orderId);
+        if (optOrder.isPresent()) {
+            final Order lockedOrder = optOrder.get();
+            final OrderBookEntry entry = OrderBookEntry.of(lockedOrder);
+            final List<OrderBookEntry> takenEntries = new ArrayList<>();
+            final Optional<Order> counterOrder = this.counterOrder(entry, takenEntries);
+            if (counterOrder.isPresent()) {
+                this.returnToBookOnRollback(entry, takenEntries);
+                this.orderPairExecution.sendForExecution(
+                        lockedOrder, counterOrder.get(), () -> this.counterOrder(entry, takenEntries));
+                result = true;
+            }
+        } else {
+            this.orderBook.remove(this.orderId);
+        }
+        return result;
+    }
+
+    private Optional<Order> counterOrder(final OrderBookEntry entry, final List<OrderBookEntry> takenEntries) {
+        final List<OrderBookEntry> skippedEntries = new ArrayList<>();
+        Optional<OrderBookEntry> counter = this.orderBook.match(entry);
+        Optional<Order> result = Optional.empty();
+        while (counter.isPresent() && result.isEmpty()) {
+            result = this.orderRepository.findByIdForExecutionWithSkipLocked(counter.get().getId());
+            if (result.isEmpty()) {
+                skippedEntries.add(counter.get());
+                counter = this.orderBook.match(entry);
+            } else {
+                takenEntries.add(counter.get());
+            }
+        }
+        skippedEntries.stream()
+                .filter(skipped -> this.orderRepository.isAvailableForExecution(skipped.getId()))
+                .forEach(skipped -> {
+                    this.counterMisses.increment();
+                    this.orderBook.add(skipped);
+                });
+        return result;
+    }
+
+    private void returnToBookOnRollback(final OrderBookEntry entry, final List<OrderBookEntry> takenEntries) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    orderBook.add(entry);
+                    takenEntries.forEach(orderBook::add);
+                }
+            }
+        });
+    }
+}
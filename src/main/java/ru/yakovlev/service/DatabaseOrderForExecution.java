@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Yakovlev Alexander
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ru.yakovlev.service;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.repositories.OrderRepository;
+
+/**
+ * An order that can be sent for execution, a pair for it is searched in the database. The pair is always
+ * the best priced counter order of the whole book, price bands only route orders to execution queues
+ * and never limit which prices can match. Whether an unmatched order missed a locked counter order takes
+ * one more query, so it is checked for one of {@link #MISS_SAMPLING} unmatched orders and counted with
+ * that weight.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.5.0
+ */
+@AllArgsConstructor
+@Slf4j
+public class DatabaseOrderForExecution implements OrderForExecution {
+    static final int MISS_SAMPLING = 100;
+    private final Long orderId;
+    private final OrderRepository orderRepository;
+    private final OrderPairExecution orderPairExecution;
+    private final Counter counterMisses;
+
+    @Override
+    @Transactional
+    public boolean sendForExecution() {
+        boolean result = false;
+        final Optional<Order> optOrder = this.orderRepository.findByIdForExecutionWithLock(this.orderId);
+        if (optOrder.isPresent()) {
+            final Order order = optOrder.get();
+            final Optional<Order> counterOptOrder = this.counterOrder(order);
+            if (counterOptOrder.isPresent()) {
+                this.orderPairExecution.sendForExecution(order, counterOptOrder.get(), () -> this.counterOrder(order));
+                result = true;
+            } else if (ThreadLocalRandom.current().nextInt(MISS_SAMPLING) == 0
+                    && this.orderRepository.existsOrderForExecutionByOrder(order)) {
+                this.counterMisses.increment(MISS_SAMPLING);
+            }
+        }
+        return result;
+    }
+
+    private Optional<Order> counterOrder(final Order incomingOrder) {
+        final Sort sort;
+        if (OrderType.BUY.equals(incomingOrder.getType())) {
+            sort = Sort.by("price");
+        } else {
+            sort = Sort.by(Sort.Direction.DESC, "price");
+        }
+        return this.orderRepository.findOrderForExecutionByOrderWithSkipLocked(incomingOrder, sort);
+    }
+}
@@ -0,0 +1,421 @@
+package ru.yakovlev.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.DepthOfMarketEntry;
+import ru.yakovlev.model.DepthOfMarketQuery;
+import ru.yakovlev.model.DepthOfMarketUpdate;
+import ru.yakovlev.model.PriceLevelInfo;
+import ru.yakovlev.repositories.OrderRepository;
+
+/**
+ * In-memory depth of market, only price levels are kept. A committed change of an order is applied as
+ * the difference between its leftover quantity already applied to the depth of market and its current
+ * state, the applied quantity is remembered in the order itself, so changes of different transactions
+ * can be applied in any order. Changes made by other application instances and lost changes are corrected
+ * by the periodic reconciliation with price levels aggregated in the database, the interval between
+ * reconciliations is set by the "ru.yakovlev.depth-of-market.reconciliation-interval" property.
+ * Subscribers receive changed price levels of the symbol after each change.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Component
+@Slf4j
+public class DepthOfMarketCache {
+    private final OrderRepository orderRepository;
+    private final Map<String, SymbolDepth> depths = new ConcurrentHashMap<>();
+    private final Counter drift;
+    private final String instance = UUID.randomUUID().toString();
+
+    /**
+     * Constructor.
+     *
+     * @param orderRepository order repository.
+     * @param meterRegistry registry of the cache metrics.
+     */
+    public DepthOfMarketCache(final OrderRepository orderRepository, final MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.drift = Counter.builder("depth.of.market.drift")
+                .description("Price levels of the cached depth of market corrected by reconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies the committed state of the order.
+     *
+     * @param order created or changed order.
+     */
+    public void update(final Order order) {
+        final Long previous = order.getDepthOfMarketLeftover();
+        loaded(order);
+        final Long current = order.getDepthOfMarketLeftover();
+        if (!Objects.equals(previous, current)) {
+            final SymbolDepth depth = this.depth(order.getSymbol());
+            depth.update(order.getType(), order.getPrice(), count(current) - count(previous),
+                    Objects.requireNonNullElse(current, 0L) - Objects.requireNonNullElse(previous, 0L));
+            depth.afterUpdate();
+        }
+    }
+
+    /**
+     * Remembers the state of the loaded order as applied to the depth of market.
+     *
+     * @param order loaded order.
+     */
+    public static void loaded(final Order order) {
+        final Long leftover;
+        if (order.isFullyExecuted() || order.isCancelled()) {
+            leftover = null;
+        } else {
+            leftover = order.getQuantityLeftover();
+        }
+        order.setDepthOfMarketLeftover(leftover);
+    }
+
+    /**
+     * Returns the version of the depth of market of the symbol. It changes with each change of price levels
+     * and is unique across application instances and restarts, so it can be used as an entity tag.
+     *
+     * @param symbol symbol of the instrument.
+     * @return version of the depth of market.
+     */
+    public String version(final String symbol) {
+        final SymbolDepth depth = this.depths.get(symbol);
+        final long sequence;
+        if (Objects.isNull(depth)) {
+            sequence = 0L;
+        } else {
+            sequence = depth.sequence();
+        }
+        return this.instance + '-' + sequence;
+    }
+
+    /**
+     * Returns price levels of the symbol ordered by price and order type.
+     *
+     * @param symbol symbol of the instrument.
+     * @return price levels.
+     */
+    public List<PriceLevelInfo> priceLevels(final String symbol) {
+        final SymbolDepth depth = this.depths.get(symbol);
+        final List<PriceLevelInfo> result;
+        if (Objects.isNull(depth)) {
+            result = List.of();
+        } else {
+            result = depth.priceLevels();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the requested part of price levels of one side of the depth of market, best price first.
+     * Price levels are read from the sorted index of the side until the requested depth is reached.
+     *
+     * @param symbol symbol of the instrument.
+     * @param type side of the depth of market.
+     * @param query requested part of the depth of market.
+     * @return price levels, the highest price first for buy orders and the lowest price first for sell orders.
+     */
+    public List<PriceLevelInfo> priceLevels(final String symbol, final OrderType type,
+                                            final DepthOfMarketQuery query) {
+        final SymbolDepth depth = this.depths.get(symbol);
+        final List<PriceLevelInfo> result;
+        if (Objects.isNull(depth)) {
+            result = List.of();
+        } else {
+            result = depth.priceLevels(type, query);
+        }
+        return result;
+    }
+
+    /**
+     * Subscribes to changes of the depth of market of the symbol. Changes are passed to the subscriber while
+     * the depth of market is locked, so the subscriber should not block, then the subscriber is notified
+     * after the depth of market is unlocked.
+     *
+     * @param symbol symbol of the instrument.
+     * @param subscriber receiver of changes.
+     * @return snapshot of the depth of market, the first change passed to the subscriber follows it.
+     */
+    public DepthOfMarketUpdate subscribe(final String symbol, final Subscriber subscriber) {
+        return this.depth(symbol).subscribe(subscriber);
+    }
+
+    /**
+     * Cancels the subscription to changes of the depth of market of the symbol.
+     *
+     * @param symbol symbol of the instrument.
+     * @param subscriber receiver of changes.
+     */
+    public void unsubscribe(final String symbol, final Subscriber subscriber) {
+        final SymbolDepth depth = this.depths.get(symbol);
+        if (Objects.nonNull(depth)) {
+            depth.unsubscribe(subscriber);
+        }
+    }
+
+    /**
+     * Corrects price levels that differ from price levels aggregated in the database. Price levels changed
+     * since the reconciliation started are kept, they are checked by the next reconciliation. A change
+     * committed before the database was read but applied after the correction is counted twice until
+     * the next reconciliation.
+     *
+     * @return number of corrected price levels.
+     */
+    @Scheduled(fixedDelayString = "${ru.yakovlev.depth-of-market.reconciliation-interval:PT5M}")
+    public long reconcile() {
+        this.depths.values().forEach(SymbolDepth::startReconciliation);
+        final Map<String, List<DepthOfMarketEntry>> entries = new HashMap<>();
+        for (val entry : this.orderRepository.findDepthOfMarketEntries()) {
+            entries.computeIfAbsent(entry.getSymbol(), key -> new ArrayList<>()).add(entry);
+        }
+        entries.keySet().forEach(this::depth);
+        var result = 0L;
+        for (val depth : this.depths.entrySet()) {
+            result += depth.getValue().reconcile(entries.getOrDefault(depth.getKey(), List.of()));
+            depth.getValue().afterUpdate();
+        }
+        if (result > 0) {
+            log.warn("Depth of market was corrected at {} price levels", result);
+            this.drift.increment(result);
+        }
+        return result;
+    }
+
+    private SymbolDepth depth(final String symbol) {
+        return this.depths.computeIfAbsent(symbol, key -> new SymbolDepth());
+    }
+
+    /**
+     * Rounds the price to the tick, down for buy orders and up for sell orders, so a grouped level
+     * is never better than prices of its orders.
+     */
+    private static BigDecimal group(final BigDecimal price, final OrderType type, final BigDecimal tick) {
+        final BigDecimal result;
+        if (Objects.isNull(tick)) {
+            result = price;
+        } else if (OrderType.BUY.equals(type)) {
+            result = price.divide(tick, 0, RoundingMode.FLOOR).multiply(tick);
+        } else {
+            result = price.divide(tick, 0, RoundingMode.CEILING).multiply(tick);
+        }
+        return result;
+    }
+
+    private static long count(final Long leftover) {
+        final long result;
+        if (Objects.isNull(leftover)) {
+            result = 0L;
+        } else {
+            result = 1L;
+        }
+        return result;
+    }
+
+    /**
+     * Receiver of changes of the depth of market of a symbol.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    public interface Subscriber extends Consumer<DepthOfMarketUpdate> {
+
+        /**
+         * Called after changes were passed to subscribers and the depth of market was unlocked,
+         * also when there were no changes for this subscriber.
+         */
+        default void afterUpdate() {
+        }
+    }
+
+    /**
+     * Price level key.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    @Value
+    private static class Level {
+        BigDecimal price;
+        OrderType type;
+    }
+
+    /**
+     * Depth of market of one symbol. A price level is kept until both its number of orders and quantity
+     * are zero and is shown only while it has orders, so changes applied out of order are not lost.
+     * Price levels changed since the reconciliation started are remembered, they are bounded by
+     * the number of price levels.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    private static final class SymbolDepth {
+        private final Map<OrderType, NavigableMap<BigDecimal, long[]>> levels = new EnumMap<>(OrderType.class);
+        private final Map<OrderType, NavigableSet<BigDecimal>> touched = new EnumMap<>(OrderType.class);
+        private final Map<Level, PriceLevelInfo> changed = new LinkedHashMap<>();
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private long sequence;
+
+        synchronized void update(final OrderType type, final BigDecimal price, final long count,
+                                 final long quantity) {
+            this.add(type, price, count, quantity);
+            this.touched.computeIfAbsent(type, key -> new TreeSet<>()).add(price);
+            this.publish();
+        }
+
+        synchronized void startReconciliation() {
+            this.touched.clear();
+        }
+
+        synchronized long sequence() {
+            return this.sequence;
+        }
+
+        synchronized DepthOfMarketUpdate subscribe(final Subscriber subscriber) {
+            this.subscribers.add(subscriber);
+            return new DepthOfMarketUpdate(this.sequence, this.priceLevels());
+        }
+
+        synchronized void unsubscribe(final Subscriber subscriber) {
+            this.subscribers.remove(subscriber);
+        }
+
+        void afterUpdate() {
+            this.subscribers.forEach(Subscriber::afterUpdate);
+        }
+
+        synchronized List<PriceLevelInfo> priceLevels() {
+            final List<PriceLevelInfo> result = new ArrayList<>();
+            this.levels.forEach((type, prices) -> prices.forEach((price, value) -> {
+                if (value[0] > 0) {
+                    result.add(new PriceLevelInfo(price, type, value[0], value[1]));
+                }
+            }));
+            result.sort(Comparator.comparing(PriceLevelInfo::getPrice).thenComparing(PriceLevelInfo::getType));
+            return result;
+        }
+
+        synchronized List<PriceLevelInfo> priceLevels(final OrderType type, final DepthOfMarketQuery query) {
+            NavigableMap<BigDecimal, long[]> prices = this.levels.getOrDefault(type, new TreeMap<>());
+            if (Objects.nonNull(query.getMinPrice())) {
+                prices = prices.tailMap(query.getMinPrice(), true);
+            }
+            if (Objects.nonNull(query.getMaxPrice())) {
+                prices = prices.headMap(query.getMaxPrice(), true);
+            }
+            if (OrderType.BUY.equals(type)) {
+                prices = prices.descendingMap();
+            }
+            final int depth = Objects.requireNonNullElse(query.getDepth(), Integer.MAX_VALUE);
+            final List<PriceLevelInfo> result = new ArrayList<>(Math.min(depth, prices.size()));
+            BigDecimal price = null;
+            long[] value = null;
+            for (val level : prices.entrySet()) {
+                if (level.getValue()[0] > 0) {
+                    final BigDecimal levelPrice = group(level.getKey(), type, query.getTick());
+                    if (Objects.isNull(price) || price.compareTo(levelPrice) != 0) {
+                        if (Objects.nonNull(price)) {
+                            result.add(new PriceLevelInfo(price, type, value[0], value[1]));
+                        }
+                        if (result.size() >= depth) {
+                            price = null;
+                            break;
+                        }
+                        price = levelPrice;
+                        value = new long[2];
+                    }
+                    value[0] += level.getValue()[0];
+                    value[1] += level.getValue()[1];
+                }
+            }
+            if (Objects.nonNull(price)) {
+                result.add(new PriceLevelInfo(price, type, value[0], value[1]));
+            }
+            return result;
+        }
+
+        synchronized long reconcile(final List<DepthOfMarketEntry> entries) {
+            final Map<OrderType, NavigableMap<BigDecimal, DepthOfMarketEntry>> actual = new EnumMap<>(OrderType.class);
+            entries.forEach(entry -> actual.computeIfAbsent(entry.getType(), key -> new TreeMap<>())
+                    .put(entry.getPrice(), entry));
+            long result = 0;
+            for (val type : OrderType.values()) {
+                final NavigableMap<BigDecimal, DepthOfMarketEntry> prices =
+                        actual.getOrDefault(type, Collections.emptyNavigableMap());
+                final NavigableSet<BigDecimal> changedPrices =
+                        this.touched.getOrDefault(type, Collections.emptyNavigableSet());
+                for (val cached : new ArrayList<>(this.levels.getOrDefault(type, new TreeMap<>()).entrySet())) {
+                    if (!prices.containsKey(cached.getKey()) && !changedPrices.contains(cached.getKey())) {
+                        this.add(type, cached.getKey(), -cached.getValue()[0], -cached.getValue()[1]);
+                        result++;
+                    }
+                }
+                for (val entry : prices.values()) {
+                    final long[] cached = this.levels.getOrDefault(type, Collections.emptyNavigableMap())
+                            .getOrDefault(entry.getPrice(), new long[2]);
+                    if (!changedPrices.contains(entry.getPrice()) && (cached[0] != entry.getOrdersCount()
+                            || cached[1] != entry.getOverallQuantity())) {
+                        this.add(type, entry.getPrice(), entry.getOrdersCount() - cached[0],
+                                entry.getOverallQuantity() - cached[1]);
+                        result++;
+                    }
+                }
+            }
+            this.touched.clear();
+            this.publish();
+            return result;
+        }
+
+        private void add(final OrderType type, final BigDecimal price, final long count, final long quantity) {
+            val prices = this.levels.computeIfAbsent(type, key -> new TreeMap<>());
+            val value = prices.computeIfAbsent(price, key -> new long[2]);
+            value[0] += count;
+            value[1] += quantity;
+            if (value[0] == 0 && value[1] == 0) {
+                prices.remove(price);
+            }
+            val level = new Level(price, type);
+            if (value[0] > 0) {
+                this.changed.put(level, new PriceLevelInfo(price, type, value[0], value[1]));
+            } else {
+                this.changed.put(level, new PriceLevelInfo(price, type, 0L, 0L));
+            }
+        }
+
+        private void publish() {
+            if (!this.changed.isEmpty()) {
+                this.sequence++;
+                val update = new DepthOfMarketUpdate(this.sequence, new ArrayList<>(this.changed.values()));
+                this.changed.clear();
+                this.subscribers.forEach(subscriber -> subscriber.accept(update));
+            }
+        }
+    }
+}
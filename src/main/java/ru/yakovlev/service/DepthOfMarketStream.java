@@ -0,0 +1,183 @@
+package ru.yakovlev.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.DepthOfMarketUpdate;
+import ru.yakovlev.model.PriceLevelInfo;
+
+/**
+ * Streams of depth of market changes as server-sent events. A subscriber receives the "snapshot" event
+ * and then "update" events with changed price levels. Changes that arrive while the previous event is
+ * being sent are conflated per price level, so a slow subscriber receives the latest state of each
+ * price level and skips intermediate sequence numbers. Events are sent by a dedicated bounded executor,
+ * so slow subscribers do not take threads of order execution. A subscription that cannot be scheduled
+ * because the executor is overloaded is closed, the client should subscribe again.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Component
+@Slf4j
+public class DepthOfMarketStream {
+    private final DepthOfMarketCache depthOfMarketCache;
+    private final TaskExecutor taskExecutor;
+    private final Duration timeout;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor.
+     *
+     * @param depthOfMarketCache in-memory depth of market.
+     * @param taskExecutor bounded executor sending events.
+     * @param timeout time after which a stream is closed, the client should subscribe again.
+     * @param meterRegistry registry of the stream metrics.
+     */
+    public DepthOfMarketStream(final DepthOfMarketCache depthOfMarketCache,
+                               @Qualifier("depthOfMarketStreamExecutor") final TaskExecutor taskExecutor,
+                               @Value("${ru.yakovlev.depth-of-market.stream-timeout:PT30M}") final Duration timeout,
+                               final MeterRegistry meterRegistry) {
+        this.depthOfMarketCache = depthOfMarketCache;
+        this.taskExecutor = taskExecutor;
+        this.timeout = timeout;
+        meterRegistry.gauge("depth.of.market.subscribers", this.subscriptions, Set::size);
+    }
+
+    /**
+     * Opens a stream of the depth of market of the symbol.
+     *
+     * @param symbol symbol of the instrument.
+     * @return event stream.
+     */
+    public SseEmitter subscribe(final String symbol) {
+        val emitter = new SseEmitter(this.timeout.toMillis());
+        val subscription = new Subscription(symbol, emitter);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        this.subscriptions.add(subscription);
+        subscription.start(this.depthOfMarketCache.subscribe(symbol, subscription));
+        return emitter;
+    }
+
+    /**
+     * Subscription of one client. At most one event sending is scheduled at a time, changes received
+     * meanwhile replace the pending state of their price levels.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    private final class Subscription implements DepthOfMarketCache.Subscriber {
+        private final String symbol;
+        private final SseEmitter emitter;
+        private final Map<OrderType, NavigableMap<BigDecimal, PriceLevelInfo>> pending = new EnumMap<>(
+                OrderType.class);
+        private DepthOfMarketUpdate snapshot;
+        private long sequence;
+        private boolean scheduled = true;
+
+        Subscription(final String symbol, final SseEmitter emitter) {
+            this.symbol = symbol;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public synchronized void accept(final DepthOfMarketUpdate update) {
+            for (val level : update.getPriceLevels()) {
+                this.pending.computeIfAbsent(level.getType(), type -> new TreeMap<>()).put(level.getPrice(), level);
+            }
+            this.sequence = update.getSequence();
+        }
+
+        @Override
+        public void afterUpdate() {
+            final boolean schedule;
+            synchronized (this) {
+                schedule = !this.scheduled && !this.pending.isEmpty();
+                if (schedule) {
+                    this.scheduled = true;
+                }
+            }
+            if (schedule) {
+                this.schedule();
+            }
+        }
+
+        void start(final DepthOfMarketUpdate initial) {
+            synchronized (this) {
+                this.snapshot = initial;
+            }
+            this.schedule();
+        }
+
+        void close() {
+            if (DepthOfMarketStream.this.subscriptions.remove(this)) {
+                DepthOfMarketStream.this.depthOfMarketCache.unsubscribe(this.symbol, this);
+            }
+        }
+
+        private void schedule() {
+            try {
+                DepthOfMarketStream.this.taskExecutor.execute(this::send);
+            } catch (final TaskRejectedException ex) {
+                log.warn("Depth of market stream of {} is closed, the stream executor is overloaded", this.symbol);
+                this.close();
+                this.emitter.complete();
+            }
+        }
+
+        private void send() {
+            final List<SseEmitter.SseEventBuilder> events = new ArrayList<>(2);
+            synchronized (this) {
+                if (Objects.nonNull(this.snapshot)) {
+                    events.add(SseEmitter.event().name("snapshot").id(String.valueOf(this.snapshot.getSequence()))
+                            .data(this.snapshot));
+                    this.snapshot = null;
+                }
+                if (!this.pending.isEmpty()) {
+                    final List<PriceLevelInfo> levels = new ArrayList<>();
+                    this.pending.values().forEach(prices -> levels.addAll(prices.values()));
+                    this.pending.clear();
+                    events.add(SseEmitter.event().name("update").id(String.valueOf(this.sequence))
+                            .data(new DepthOfMarketUpdate(this.sequence, levels)));
+                }
+            }
+            try {
+                for (val event : events) {
+                    this.emitter.send(event);
+                }
+            } catch (final IOException | IllegalStateException ex) {
+                log.debug("Depth of market stream of {} is closed", this.symbol, ex);
+                this.close();
+                return;
+            }
+            final boolean again;
+            synchronized (this) {
+                again = !this.pending.isEmpty();
+                this.scheduled = again;
+            }
+            if (again) {
+                this.schedule();
+            }
+        }
+    }
+}
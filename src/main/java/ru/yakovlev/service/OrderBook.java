@@ -0,0 +1,156 @@
+package ru.yakovlev.service;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.OrderBookEntry;
+import ru.yakovlev.repositories.OrderRepository;
+
+/**
+ * In-memory order book. Each symbol has its own book with its own lock, so matching of one symbol never
+ * waits for another. Bids and asks are sorted by price, then by id (price-time priority).
+ * The book contains only orders that are not on execution. Entries of orders that were cancelled
+ * while resting in the book are discarded lazily when they turn out to be the best counter order.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Slf4j
+public class OrderBook {
+    private final OrderRepository orderRepository;
+    private final Map<Long, OrderBookEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, SymbolBook> books = new ConcurrentHashMap<>();
+
+    public OrderBook(final OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * Rebuilds the book from active orders of the database.
+     */
+    public void load() {
+        this.books.values().forEach(SymbolBook::clear);
+        this.orderRepository.findOrderBookEntries().forEach(this::add);
+        log.info("Order book is loaded, symbols: {}, orders: {}", this.books.size(), this.entries.size());
+    }
+
+    /**
+     * Places the order in the book.
+     *
+     * @param entry order book entry.
+     */
+    public void add(final OrderBookEntry entry) {
+        this.book(entry.getSymbol()).add(entry);
+    }
+
+    /**
+     * Takes the order out of the book.
+     *
+     * @param id order id.
+     */
+    public void remove(final Long id) {
+        val entry = this.entries.get(id);
+        if (Objects.nonNull(entry)) {
+            this.book(entry.getSymbol()).remove(entry);
+        }
+    }
+
+    /**
+     * Places the order in the book and, if the best counter order of the same symbol crosses it,
+     * takes both orders out of the book.
+     *
+     * @param entry order book entry.
+     * @return counter order, if it crosses the given order.
+     */
+    public Optional<OrderBookEntry> match(final OrderBookEntry entry) {
+        return this.book(entry.getSymbol()).match(entry);
+    }
+
+    /**
+     * Returns the number of orders in the book.
+     *
+     * @return number of orders in the book.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    private SymbolBook book(final String symbol) {
+        return this.books.computeIfAbsent(symbol, key -> new SymbolBook());
+    }
+
+    /**
+     * Order book of one symbol.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    private final class SymbolBook {
+        private final NavigableSet<OrderBookEntry> bids = new TreeSet<>(
+                Comparator.comparing(OrderBookEntry::getPrice).reversed().thenComparing(OrderBookEntry::getId));
+        private final NavigableSet<OrderBookEntry> asks = new TreeSet<>(
+                Comparator.comparing(OrderBookEntry::getPrice).thenComparing(OrderBookEntry::getId));
+
+        synchronized void clear() {
+            this.bids.forEach(entry -> entries.remove(entry.getId()));
+            this.asks.forEach(entry -> entries.remove(entry.getId()));
+            this.bids.clear();
+            this.asks.clear();
+        }
+
+        synchronized void add(final OrderBookEntry entry) {
+            if (Objects.isNull(entries.putIfAbsent(entry.getId(), entry))) {
+                this.side(entry.getType()).add(entry);
+            }
+        }
+
+        synchronized void remove(final OrderBookEntry entry) {
+            if (entries.remove(entry.getId(), entry)) {
+                this.side(entry.getType()).remove(entry);
+            }
+        }
+
+        synchronized Optional<OrderBookEntry> match(final OrderBookEntry entry) {
+            this.add(entry);
+            final Optional<OrderBookEntry> result;
+            final NavigableSet<OrderBookEntry> counterSide;
+            if (OrderType.BUY.equals(entry.getType())) {
+                counterSide = this.asks;
+            } else {
+                counterSide = this.bids;
+            }
+            if (counterSide.isEmpty()) {
+                result = Optional.empty();
+            } else {
+                val counter = counterSide.first();
+                final int comparison = entry.getPrice().compareTo(counter.getPrice());
+                if (OrderType.BUY.equals(entry.getType()) && comparison >= 0
+                        || OrderType.SELL.equals(entry.getType()) && comparison <= 0) {
+                    this.remove(entry);
+                    this.remove(counter);
+                    result = Optional.of(counter);
+                } else {
+                    result = Optional.empty();
+                }
+            }
+            return result;
+        }
+
+        private NavigableSet<OrderBookEntry> side(final OrderType type) {
+            final NavigableSet<OrderBookEntry> result;
+            if (OrderType.BUY.equals(type)) {
+                result = this.bids;
+            } else {
+                result = this.asks;
+            }
+            return result;
+        }
+    }
+}
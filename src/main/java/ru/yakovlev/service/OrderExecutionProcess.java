@@ -1,13 +1,31 @@
 package ru.yakovlev.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import javax.persistence.OptimisticLockException;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.config.OrderExecutionProperties;
 import ru.yakovlev.entities.OrderExecution;
 import ru.yakovlev.entities.Transfer;
 import ru.yakovlev.repositories.OrderExecutionRepository;
@@ -20,55 +38,255 @@ import ru.yakovlev.repositories.TransferRepository;
  * @since 0.6.0
  */
 @Component
-@AllArgsConstructor
 @Slf4j
 public class OrderExecutionProcess {
+    private static final Set<String> TRANSIENT_SQL_STATES = Set.of("40001", "40P01");
     private final OrderExecutionRepository orderExecutionRepository;
     private final TransferRepository transferRepository;
     private final TransactionTemplate transactionTemplate;
+    private final OrderExecutionProperties properties;
+    private final OrdersOnExecution ordersOnExecution;
+    private final TaskScheduler taskScheduler;
+    private final TaskExecutor taskExecutor;
+    private final Map<Long, Long> pendingExecutions = new ConcurrentHashMap<>();
+    private final Set<Long> deadLetters = ConcurrentHashMap.newKeySet();
+    private final Counter retries;
+    private final Counter requeued;
+    private final Counter deadLettered;
+    private final Timer execution;
 
     /**
-     * The execution process starts.
+     * Constructor.
+     *
+     * @param orderExecutionRepository order execution repository.
+     * @param transferRepository transfer repository.
+     * @param transactionTemplate transaction template.
+     * @param properties order execution properties.
+     * @param ordersOnExecution number of orders on execution.
+     * @param taskScheduler schedules retries after the backoff.
+     * @param taskExecutor executes scheduled retries.
+     * @param meterRegistry registry of the execution metrics.
+     */
+    public OrderExecutionProcess(final OrderExecutionRepository orderExecutionRepository,
+                                 final TransferRepository transferRepository,
+                                 final TransactionTemplate transactionTemplate,
+                                 final OrderExecutionProperties properties,
+                                 final OrdersOnExecution ordersOnExecution, final TaskScheduler taskScheduler,
+                                 @Qualifier("taskExecutor") final TaskExecutor taskExecutor,
+                                 final MeterRegistry meterRegistry) {
+        this.orderExecutionRepository = orderExecutionRepository;
+        this.transferRepository = transferRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.ordersOnExecution = ordersOnExecution;
+        this.taskScheduler = taskScheduler;
+        this.taskExecutor = taskExecutor;
+        this.retries = Counter.builder("order.execution.retries")
+                .description("Retries of order executions after lock conflicts and serialization failures")
+                .register(meterRegistry);
+        this.requeued = Counter.builder("order.execution.failures")
+                .description("Order executions for which all attempts failed")
+                .tag("outcome", "requeued")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("order.execution.failures")
+                .description("Order executions for which all attempts failed")
+                .tag("outcome", "dead_letter")
+                .register(meterRegistry);
+        this.execution = Timer.builder("order.execution")
+                .description("Time from pairing orders to the end of their asynchronous execution")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("order.execution.dead.letters", this.deadLetters, Set::size)
+                .description("Order executions in the dead letter list")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The execution process starts. The order execution is skipped if it has been executed already,
+     * for example by the recovery, or if a concurrent execution commits the transfer first. On optimistic
+     * lock conflicts, deadlocks and serialization failures the execution is retried with exponential
+     * backoff and full jitter, when all attempts failed it is left to the recovery or put to the dead letter
+     * list. Retries are scheduled by the task scheduler, so no executor thread sleeps during the backoff.
      *
      * @param orderExecution order execution.
      */
     @Async
     public void execute(final OrderExecution orderExecution) {
-        var count = 3;
-        while (count-- != 0) {
+        this.attempt(orderExecution, 1);
+    }
+
+    /**
+     * Marks the order execution as pending, it is going to be executed by this process.
+     *
+     * @param orderExecution order execution.
+     */
+    public void markPending(final OrderExecution orderExecution) {
+        this.pendingExecutions.putIfAbsent(orderExecution.getId(), System.nanoTime());
+    }
+
+    /**
+     * Removes the pending mark of the order execution, it is not going to be executed by this process.
+     *
+     * @param orderExecution order execution.
+     */
+    public void unmarkPending(final OrderExecution orderExecution) {
+        this.pendingExecutions.remove(orderExecution.getId());
+    }
+
+    /**
+     * Checks whether the order execution is going to be executed by this process or is in the dead letter list.
+     *
+     * @param id order execution id.
+     * @return true, if the order execution is pending.
+     */
+    public boolean isPending(final Long id) {
+        return this.pendingExecutions.containsKey(id) || this.deadLetters.contains(id);
+    }
+
+    /**
+     * Returns ids of order executions in the dead letter list. The list is kept in memory only and is empty
+     * after a restart, then its order executions are sent for execution again by the recovery.
+     *
+     * @return order execution ids.
+     */
+    public Set<Long> deadLetters() {
+        return Set.copyOf(this.deadLetters);
+    }
+
+    /**
+     * Clears the dead letter list, the order executions are executed again by the recovery.
+     *
+     * @return number of released order executions.
+     */
+    public int releaseDeadLetters() {
+        val released = Set.copyOf(this.deadLetters);
+        this.deadLetters.removeAll(released);
+        return released.size();
+    }
+
+    private void attempt(final OrderExecution orderExecution, final int attempt) {
+        var completed = true;
+        try {
+            if (!this.tryExecute(orderExecution)) {
+                if (attempt >= this.properties.getRetryAttempts()) {
+                    this.onRetriesExhausted(orderExecution);
+                } else {
+                    this.retries.increment();
+                    this.scheduleRetry(orderExecution, attempt + 1);
+                    completed = false;
+                }
+            }
+        } finally {
+            if (completed) {
+                this.complete(orderExecution);
+            }
+        }
+    }
+
+    private void scheduleRetry(final OrderExecution orderExecution, final int attempt) {
+        this.taskScheduler.schedule(() -> {
             try {
-                this.transactionTemplate.executeWithoutResult(status -> {
-                    val optExecution = this.orderExecutionRepository.findById(orderExecution.getId());
-                    if (optExecution.isPresent()) {
-                        final var execution = optExecution.get();
-                        if (execution.getFromOrder().isCancelled() || execution.getToOrder().isCancelled()) {
-                            this.cancelExecution(execution);
-                        } else {
-                            this.prepare(execution);
-                        }
+                this.taskExecutor.execute(() -> this.attempt(orderExecution, attempt));
+            } catch (TaskRejectedException ex) {
+                this.onRetriesExhausted(orderExecution);
+                this.complete(orderExecution);
+            }
+        }, Instant.now().plusMillis(this.backoff(attempt - 1)));
+    }
+
+    private void complete(final OrderExecution orderExecution) {
+        val pendingSince = this.pendingExecutions.remove(orderExecution.getId());
+        if (Objects.nonNull(pendingSince)) {
+            this.execution.record(System.nanoTime() - pendingSince, TimeUnit.NANOSECONDS);
+        }
+    }
 
+    private boolean tryExecute(final OrderExecution orderExecution) {
+        boolean result;
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                val optExecution = this.orderExecutionRepository.findById(orderExecution.getId());
+                if (optExecution.isPresent()
+                        && !this.transferRepository.existsByOrderExecutionId(orderExecution.getId())) {
+                    final var execution = optExecution.get();
+                    if (execution.getFromOrder().isCancelled() || execution.getToOrder().isCancelled()) {
+                        this.cancelExecution(execution);
+                    } else {
+                        this.prepare(execution);
                     }
-                });
-                break;
-            } catch (OptimisticLockException | OptimisticLockingFailureException ex) {
-                log.debug("Optimistic exception during order execution");
+
+                }
+            });
+            result = true;
+        } catch (OptimisticLockException | OptimisticLockingFailureException ex) {
+            log.debug("Optimistic exception during order execution");
+            result = false;
+        } catch (DataIntegrityViolationException ex) {
+            if (!this.transferRepository.existsByOrderExecutionId(orderExecution.getId())) {
+                throw ex;
+            }
+            log.debug("{} order execution has been applied by a concurrent execution", orderExecution.getId());
+            result = true;
+        } catch (RuntimeException ex) {
+            if (!isTransientFailure(ex)) {
+                throw ex;
             }
+            log.debug("Deadlock or serialization failure during order execution");
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the failure is a deadlock or a serialization failure. Failures at commit are not
+     * translated to data access exceptions, so SQL states of the causes are checked as well.
+     *
+     * @param failure failure of the execution transaction.
+     * @return true, if the transaction may succeed when retried.
+     */
+    private static boolean isTransientFailure(final Throwable failure) {
+        var result = false;
+        var cause = failure;
+        while (!result && Objects.nonNull(cause)) {
+            result = cause instanceof PessimisticLockingFailureException
+                    || cause instanceof SQLException
+                    && TRANSIENT_SQL_STATES.contains(((SQLException) cause).getSQLState());
+            cause = cause.getCause();
+        }
+        return result;
+    }
+
+    private long backoff(final int attempt) {
+        val max = this.properties.getRetryMaxBackoff().toMillis();
+        val delay = Math.min(max, this.properties.getRetryBackoff().toMillis() << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(delay + 1);
+    }
+
+    private void onRetriesExhausted(final OrderExecution orderExecution) {
+        if (OrderExecutionProperties.RetryExhaustedPolicy.DEAD_LETTER.equals(
+                this.properties.getRetryExhaustedPolicy())) {
+            this.deadLetters.add(orderExecution.getId());
+            this.deadLettered.increment();
+            log.warn("{} order execution failed and was put to the dead letter list", orderExecution.getId());
+        } else {
+            this.requeued.increment();
+            log.warn("{} order execution failed and is left to the recovery", orderExecution.getId());
         }
     }
 
     private void cancelExecution(final OrderExecution execution) {
         execution.getFromOrder().setOnExecution(false);
         execution.getToOrder().setOnExecution(false);
+        this.ordersOnExecution.changeAfterCommit(-2);
         this.transferRepository.save(new Transfer(execution, 0));
     }
 
     private void prepare(final OrderExecution execution) {
+        this.ordersOnExecution.changeAfterCommit(-2);
         val fromOrder = execution.getFromOrder();
         val toOrder = execution.getToOrder();
-        val fromSum = this.transferRepository.sumQuantityOfAllTransfersForOrder(fromOrder.getId());
-        val fromLeftover = fromOrder.getQuantity() - fromSum;
-        val toSum = this.transferRepository.sumQuantityOfAllTransfersForOrder(toOrder.getId());
-        val toLeftover = toOrder.getQuantity() - toSum;
+        val fromLeftover = fromOrder.getQuantityLeftover();
+        val toLeftover = toOrder.getQuantityLeftover();
         if (fromLeftover == toLeftover) {
             fromOrder.setOnExecution(false);
             toOrder.setOnExecution(false);
@@ -0,0 +1,162 @@
+package ru.yakovlev.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import ru.yakovlev.config.OrderExecutionProperties;
+
+/**
+ * Bounded queue of order ids waiting for execution. An order id is queued once while it is waiting,
+ * repeated notifications about the same order are collapsed. When the queue is full, the producer
+ * either waits or the order id is dropped, according to the overload policy. Notifications after
+ * the commit never wait, because they are also sent by the workers that take order ids from the queue.
+ * Dropped orders stay active in the database and are found again by the sweep.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Slf4j
+public class OrderExecutionQueue {
+    private final BlockingQueue<Long> queue;
+    private final Set<Long> waiting = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dropped = new AtomicBoolean();
+    private final int capacity;
+    private final OrderExecutionProperties.OverloadPolicy policy;
+    private final Counter droppedCounter;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity maximum number of waiting order ids.
+     * @param policy behavior when the queue is full.
+     * @param meterRegistry registry of the queue metrics.
+     * @param tags tags of the queue metrics.
+     */
+    public OrderExecutionQueue(final int capacity, final OrderExecutionProperties.OverloadPolicy policy,
+                               final MeterRegistry meterRegistry, final Iterable<Tag> tags) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.policy = policy;
+        Gauge.builder("order.execution.queue.depth", this.queue, BlockingQueue::size)
+                .description("Orders waiting in the queue for execution")
+                .tags(tags)
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("order.execution.queue.dropped")
+                .description("Orders not queued because the queue was full")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds the order id to the queue, if it is not waiting already.
+     *
+     * @param id order id.
+     * @return false, if the queue is full and the order id was dropped.
+     * @throws InterruptedException if the thread was interrupted while waiting for free space.
+     */
+    public boolean offer(final Long id) throws InterruptedException {
+        boolean result = true;
+        if (this.waiting.add(id)) {
+            if (OrderExecutionProperties.OverloadPolicy.BLOCK.equals(this.policy)) {
+                this.put(id);
+            } else {
+                result = this.offerOrDrop(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the order id to the queue, if it is not waiting already. Never waits for free space, if the queue
+     * is full, then the order id is dropped regardless of the overload policy.
+     *
+     * @param id order id.
+     * @return false, if the queue is full and the order id was dropped.
+     */
+    public boolean tryOffer(final Long id) {
+        boolean result = true;
+        if (this.waiting.add(id)) {
+            result = this.offerOrDrop(id);
+        }
+        return result;
+    }
+
+    /**
+     * Takes the next order id, waiting if the queue is empty. The order id can be queued again from now on.
+     *
+     * @return order id.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public Long take() throws InterruptedException {
+        final Long result = this.queue.take();
+        this.waiting.remove(result);
+        return result;
+    }
+
+    /**
+     * Checks that new orders can be accepted.
+     *
+     * @throws OrderExecutionQueueOverflowException if the queue is full and the overload policy is REJECT.
+     */
+    public void checkCapacity() throws OrderExecutionQueueOverflowException {
+        if (OrderExecutionProperties.OverloadPolicy.REJECT.equals(this.policy)
+                && this.queue.remainingCapacity() == 0) {
+            throw new OrderExecutionQueueOverflowException(this.capacity);
+        }
+    }
+
+    /**
+     * Returns whether order ids were dropped since the last call and resets the mark.
+     *
+     * @return true, if order ids were dropped.
+     */
+    public boolean resetDropped() {
+        return this.dropped.getAndSet(false);
+    }
+
+    /**
+     * Returns the maximum number of waiting order ids.
+     *
+     * @return queue capacity.
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of waiting order ids.
+     *
+     * @return queue depth.
+     */
+    public int size() {
+        return this.queue.size();
+    }
+
+    private boolean offerOrDrop(final Long id) {
+        boolean result = true;
+        if (!this.queue.offer(id)) {
+            this.waiting.remove(id);
+            this.dropped.set(true);
+            this.droppedCounter.increment();
+            log.debug("{} order dropped, the order execution queue is full", id);
+            result = false;
+        }
+        return result;
+    }
+
+    private void put(final Long id) throws InterruptedException {
+        try {
+            this.queue.put(id);
+        } catch (InterruptedException ex) {
+            this.waiting.remove(id);
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yakovlev.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The order execution queue is full and new orders are rejected.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderExecutionQueueOverflowException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity capacity of the order execution queue.
+     */
+    public OrderExecutionQueueOverflowException(final int capacity) {
+        super("The order execution queue is full, capacity " + capacity);
+    }
+}
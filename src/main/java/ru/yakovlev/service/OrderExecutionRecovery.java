@@ -0,0 +1,92 @@
+package ru.yakovlev.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.config.OrderExecutionProperties;
+import ru.yakovlev.repositories.OrderExecutionRepository;
+import ru.yakovlev.repositories.OrderRepository;
+
+/**
+ * Recovery of order executions lost between the commit and the asynchronous execution, for example
+ * when the application was stopped. Orders of such executions stay on execution forever and do not
+ * take part in matching anymore. The recovery runs at startup and then periodically, each run sends
+ * the next batch of order executions without transfer, which are not pending in the execution process,
+ * for execution again. The interval between runs is set by the "ru.yakovlev.order.execution.recovery-interval"
+ * property.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Component
+@Slf4j
+public class OrderExecutionRecovery {
+    private final OrderExecutionRepository orderExecutionRepository;
+    private final OrderRepository orderRepository;
+    private final OrderExecutionProcess orderExecutionProcess;
+    private final OrderExecutionProperties properties;
+    private final Counter recovered;
+    private final AtomicLong lastId = new AtomicLong();
+    private final OrdersOnExecution ordersOnExecution;
+
+    /**
+     * Constructor.
+     *
+     * @param orderExecutionRepository order execution repository.
+     * @param orderRepository order repository.
+     * @param orderExecutionProcess order execution process.
+     * @param properties order execution properties.
+     * @param ordersOnExecution number of orders on execution.
+     * @param meterRegistry registry of the recovery metrics.
+     */
+    public OrderExecutionRecovery(final OrderExecutionRepository orderExecutionRepository,
+                                  final OrderRepository orderRepository,
+                                  final OrderExecutionProcess orderExecutionProcess,
+                                  final OrderExecutionProperties properties,
+                                  final OrdersOnExecution ordersOnExecution, final MeterRegistry meterRegistry) {
+        this.orderExecutionRepository = orderExecutionRepository;
+        this.orderRepository = orderRepository;
+        this.orderExecutionProcess = orderExecutionProcess;
+        this.properties = properties;
+        this.ordersOnExecution = ordersOnExecution;
+        this.recovered = Counter.builder("order.execution.recovered")
+                .description("Order executions sent for execution again by the recovery")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the next batch of lost order executions for execution. The first run initializes the number
+     * of orders on execution.
+     *
+     * @return number of recovered order executions.
+     */
+    @Scheduled(fixedDelayString = "${ru.yakovlev.order.execution.recovery-interval:PT1M}")
+    public int recover() {
+        this.ordersOnExecution.initialize(this.orderRepository::countByOnExecutionTrue);
+        val executions = this.orderExecutionRepository.findWithoutTransfer(
+                this.lastId.get(), PageRequest.of(0, this.properties.getRecoveryBatchSize()));
+        if (executions.isEmpty()) {
+            this.lastId.set(0);
+        } else {
+            this.lastId.set(executions.get(executions.size() - 1).getId());
+        }
+        var result = 0;
+        for (val execution : executions) {
+            if (!this.orderExecutionProcess.isPending(execution.getId())) {
+                this.orderExecutionProcess.markPending(execution);
+                this.orderExecutionProcess.execute(execution);
+                result++;
+            }
+        }
+        if (result > 0) {
+            log.info("{} lost order executions were sent for execution again", result);
+            this.recovered.increment(result);
+        }
+        return result;
+    }
+}
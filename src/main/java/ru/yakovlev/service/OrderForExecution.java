@@ -24,55 +24,18 @@
 
 package ru.yakovlev.service;
 
-import lombok.AllArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Sort;
-import org.springframework.transaction.annotation.Transactional;
-import ru.yakovlev.entities.Order;
-import ru.yakovlev.entities.OrderExecution;
-import ru.yakovlev.entities.embedded.OrderType;
-import ru.yakovlev.repositories.OrderExecutionRepository;
-import ru.yakovlev.repositories.OrderRepository;
-
 /**
  * An order that can be sent for execution.
  *
  * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
  * @since 0.5.0
  */
-@AllArgsConstructor
-@Slf4j
-public class OrderForExecution {
-    private final Order order;
-    private final OrderRepository orderRepository;
-    private final OrderExecutionRepository orderExecutionRepository;
+public interface OrderForExecution {
 
     /**
      * Send for execution.
+     *
+     * @return true, if a counter order was found.
      */
-    @Transactional
-    public void sendForExecution() {
-        if (OrderType.BUY.equals(this.order.getType())) {
-            var optOrder = this.orderRepository.findByIdForExecutionWithLock(this.order.getId());
-            if (optOrder.isPresent()) {
-                var firstOrder = optOrder.get();
-                var secondOptOrder = this.orderRepository
-                        .findOrderForExecutionByOrderWithSkipLocked(firstOrder, Sort.by("price"));
-                secondOptOrder.ifPresent(value -> this.sendForExecution(firstOrder, value));
-            }
-        } else {
-            var firstOptOrder = this.orderRepository
-                    .findOrderForExecutionByOrderWithSkipLocked(this.order, Sort.by(Sort.Direction.DESC, "price"));
-            if (firstOptOrder.isPresent()) {
-                var secondOptOrder = this.orderRepository.findByIdForExecutionWithLock(this.order.getId());
-                secondOptOrder.ifPresent(value -> this.sendForExecution(firstOptOrder.get(), value));
-            }
-        }
-    }
-
-    private void sendForExecution(final Order firstOrder, final Order secondOrder) {
-        firstOrder.setOnExecution(true);
-        secondOrder.setOnExecution(true);
-        this.orderExecutionRepository.save(new OrderExecution(firstOrder, secondOrder));
-    }
+    boolean sendForExecution();
 }
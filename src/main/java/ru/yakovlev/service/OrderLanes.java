@@ -0,0 +1,80 @@
+package ru.yakovlev.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import ru.yakovlev.model.OrderBookEntry;
+
+/**
+ * Lanes of order execution. Each symbol is split into the same price bands, a lane is a price band
+ * of a symbol, so orders of different traded symbols never share a lane. Orders of symbols that are
+ * not traded anymore, for example stored before the symbols were changed, go to the lanes of the first symbol.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+public class OrderLanes implements ToIntFunction<OrderBookEntry> {
+    private final List<String> symbols;
+    private final Map<String, Integer> symbolIndexes = new HashMap<>();
+    private final PriceBands bands;
+
+    /**
+     * Constructor.
+     *
+     * @param symbols symbols of traded instruments.
+     * @param bands price bands of each symbol.
+     */
+    public OrderLanes(final List<String> symbols, final PriceBands bands) {
+        this.symbols = List.copyOf(symbols);
+        this.bands = bands;
+        for (int i = 0; i < this.symbols.size(); i++) {
+            this.symbolIndexes.put(this.symbols.get(i), i);
+        }
+    }
+
+    @Override
+    public int applyAsInt(final OrderBookEntry entry) {
+        final int symbol = this.symbolIndexes.getOrDefault(entry.getSymbol(), 0);
+        return symbol * this.bands.size() + this.bands.band(entry.getPrice());
+    }
+
+    /**
+     * Checks whether the symbol is traded.
+     *
+     * @param symbol symbol of an instrument.
+     * @return true, if the symbol has lanes.
+     */
+    public boolean contains(final String symbol) {
+        return this.symbolIndexes.containsKey(symbol);
+    }
+
+    /**
+     * Returns the symbol of the lane.
+     *
+     * @param lane lane index.
+     * @return symbol.
+     */
+    public String symbol(final int lane) {
+        return this.symbols.get(lane / this.bands.size());
+    }
+
+    /**
+     * Returns the price band of the lane.
+     *
+     * @param lane lane index.
+     * @return price band index.
+     */
+    public int band(final int lane) {
+        return lane % this.bands.size();
+    }
+
+    /**
+     * Returns the number of lanes.
+     *
+     * @return number of lanes.
+     */
+    public int size() {
+        return this.symbols.size() * this.bands.size();
+    }
+}
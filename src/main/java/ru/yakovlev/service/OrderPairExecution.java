@@ -0,0 +1,93 @@
+package ru.yakovlev.service;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.config.OrderExecutionProperties;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.OrderExecution;
+import ru.yakovlev.entities.Transfer;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.repositories.OrderExecutionRepository;
+import ru.yakovlev.repositories.TransferRepository;
+
+/**
+ * Execution of a pair of orders locked by the current transaction, according to the execution mode.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Component
+@AllArgsConstructor
+public class OrderPairExecution {
+    private final OrderExecutionProperties properties;
+    private final OrderExecutionRepository orderExecutionRepository;
+    private final TransferRepository transferRepository;
+    private final OrdersOnExecution ordersOnExecution;
+
+    /**
+     * Sends the order and its counter order for execution. In the two phase mode the orders are only
+     * marked as being on execution, in the inline mode they are executed in the current transaction.
+     * In the sweep mode the order is executed against the next counter orders in the current
+     * transaction until it is filled, counter orders run out or the sweep limit is reached.
+     *
+     * @param order incoming order.
+     * @param counterOrder counter order.
+     * @param nextCounterOrder finds and locks the next counter order.
+     */
+    public void sendForExecution(final Order order, final Order counterOrder,
+                                 final Supplier<Optional<Order>> nextCounterOrder) {
+        switch (this.properties.getMode()) {
+            case INLINE:
+                this.execute(order, counterOrder);
+                break;
+            case SWEEP:
+                this.sweep(order, counterOrder, nextCounterOrder);
+                break;
+            default:
+                order.setOnExecution(true);
+                counterOrder.setOnExecution(true);
+                this.ordersOnExecution.changeAfterCommit(2);
+                this.orderExecutionRepository.save(this.orderExecution(order, counterOrder));
+        }
+    }
+
+    private void sweep(final Order order, final Order counterOrder,
+                       final Supplier<Optional<Order>> nextCounterOrder) {
+        Optional<Order> counter = Optional.of(counterOrder);
+        int executions = 0;
+        while (counter.isPresent()) {
+            this.execute(order, counter.get());
+            executions++;
+            if (order.isFullyExecuted() || executions >= this.properties.getSweepLimit()) {
+                counter = Optional.empty();
+            } else {
+                counter = nextCounterOrder.get();
+            }
+        }
+    }
+
+    private void execute(final Order order, final Order counterOrder) {
+        final var execution = this.orderExecutionRepository.save(this.orderExecution(order, counterOrder));
+        final long quantity = Math.min(order.getQuantityLeftover(), counterOrder.getQuantityLeftover());
+        this.executeQuantity(order, quantity);
+        this.executeQuantity(counterOrder, quantity);
+        this.transferRepository.save(new Transfer(execution, quantity));
+    }
+
+    private void executeQuantity(final Order order, final long quantity) {
+        order.setQuantityLeftover(order.getQuantityLeftover() - quantity);
+        order.setFullyExecuted(order.getQuantityLeftover() == 0);
+    }
+
+    private OrderExecution orderExecution(final Order order, final Order counterOrder) {
+        final OrderExecution result;
+        if (OrderType.BUY.equals(order.getType())) {
+            result = new OrderExecution(order, counterOrder);
+        } else {
+            result = new OrderExecution(counterOrder, order);
+        }
+        return result;
+    }
+}
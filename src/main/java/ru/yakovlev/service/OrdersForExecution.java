@@ -1,72 +1,266 @@
 package ru.yakovlev.service;
 
-import java.util.concurrent.BlockingQueue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import lombok.AllArgsConstructor;
+import java.util.function.ToIntFunction;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import ru.yakovlev.entities.Order;
+import ru.yakovlev.model.OrderBookEntry;
 import ru.yakovlev.repositories.OrderRepository;
 
 /**
- * Many orders that can be sent for execution.
+ * Many orders that can be sent for execution. Orders are routed to lanes, each lane has its own queue,
+ * so workers of different lanes never take the same incoming order. Counter orders are searched
+ * across all lanes, so orders crossing at a lane boundary are matched as usual.
  *
  * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
  * @since 0.5.0
  */
-@AllArgsConstructor
 @Slf4j
 public class OrdersForExecution {
-    private final BlockingQueue<Order> queue;
-    private final Function<Order, OrderForExecution> orderFactory;
+    /**
+     * Number of orders read by one query when orders are sent for execution.
+     */
+    private static final int PAGE_SIZE = 1000;
+
+    private final List<OrderExecutionQueue> lanes;
+    private final ToIntFunction<OrderBookEntry> router;
+    private final Function<Long, OrderForExecution> orderFactory;
     private final OrderRepository orderRepository;
+    private final Consumer<OrderBookEntry> book;
+    private final AtomicInteger nextLane = new AtomicInteger();
+    private final AtomicInteger workers = new AtomicInteger();
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private final Timer matched;
+    private final Timer unmatched;
+
+    /**
+     * Constructor.
+     *
+     * @param lanes order execution queues.
+     * @param router defines the lane of an order.
+     * @param orderFactory creates an order for execution by order id.
+     * @param orderRepository order repository.
+     * @param book places an order in the in-memory order book, if it is used.
+     * @param meterRegistry registry of the worker metrics.
+     */
+    public OrdersForExecution(final List<OrderExecutionQueue> lanes, final ToIntFunction<OrderBookEntry> router,
+                              final Function<Long, OrderForExecution> orderFactory,
+                              final OrderRepository orderRepository, final Consumer<OrderBookEntry> book,
+                              final MeterRegistry meterRegistry) {
+        this.lanes = lanes;
+        this.router = router;
+        this.orderFactory = orderFactory;
+        this.orderRepository = orderRepository;
+        this.book = book;
+        this.matched = this.matchingTimer("matched", meterRegistry);
+        this.unmatched = this.matchingTimer("unmatched", meterRegistry);
+        Gauge.builder("order.execution.workers", this.workers, AtomicInteger::get)
+                .description("Started order execution workers")
+                .register(meterRegistry);
+        Gauge.builder("order.execution.workers.busy", this.busyWorkers, AtomicInteger::get)
+                .description("Order execution workers which are sending an order for execution")
+                .register(meterRegistry);
+    }
 
     /**
      * Starts a new thread for order execution.
+     *
+     * @param lane index of the lane from which the worker takes orders.
      */
     @Async("simpleAsyncTaskExecutor")
-    public void startExecutionWorker() {
-        log.info("{} worker started to execute orders", Thread.currentThread().getName());
-        while (!Thread.interrupted()) {
-            Order order = null;
-            try {
-                order = this.queue.take();
-                val orderForExecution = this.orderFactory.apply(order);
-                orderForExecution.sendForExecution();
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-            } catch (Exception ex) {
-                log.error("Exception on sending order {} for execution", order, ex);
+    public void startExecutionWorker(final int lane) {
+        log.info("{} worker started to execute orders of lane {}", Thread.currentThread().getName(), lane);
+        val queue = this.lanes.get(lane);
+        this.workers.incrementAndGet();
+        try {
+            while (!Thread.interrupted()) {
+                Long orderId = null;
+                try {
+                    orderId = queue.take();
+                    this.send(orderId);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception ex) {
+                    log.error("Exception on sending order {} for execution", orderId, ex);
+                }
             }
+        } finally {
+            this.workers.decrementAndGet();
         }
     }
 
     /**
-     * Notify about a change in the order, it may be possible to send it for execution.
+     * Returns the lane for the next worker, workers are distributed among lanes in turn.
+     *
+     * @return lane index.
+     */
+    public int nextLane() {
+        return Math.floorMod(this.nextLane.getAndIncrement(), this.lanes.size());
+    }
+
+    /**
+     * Returns the number of lanes.
+     *
+     * @return number of lanes.
+     */
+    public int lanes() {
+        return this.lanes.size();
+    }
+
+    /**
+     * Notify about a change in the order, it may be possible to send it for execution. Notifications
+     * are sent after the commit, also by execution workers, so they never wait for free space in a queue,
+     * the order is dropped and found again by the sweep.
      *
      * @param order changed order.
-     * @throws InterruptedException if thread is interrupted.
      */
-    public void notify(final Order order) throws InterruptedException {
+    public void notify(final Order order) {
         if (!(order.isCancelled() || order.isFullyExecuted() || order.isOnExecution())) {
             log.trace("{} order added to the queue for execution", order.getId());
-            this.queue.put(order);
+            this.lane(OrderBookEntry.of(order)).tryOffer(order.getId());
         }
     }
 
     /**
      * Defines orders ready for execution and sends them for execution to order execution workers.
+     * Orders are read by pages in the order of ids, so only a page of orders is held in memory.
      *
      * @param limit orders limit.
      * @return number of orders sent for execution.
+     * @throws InterruptedException if thread is interrupted.
+     */
+    public int sendToExecution(final int limit) throws InterruptedException {
+        return this.sendToExecution(0L, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Sends orders ready for execution with ids in the range to order execution workers, for example
+     * orders that were just inserted bypassing the persistence context. Orders are read by pages starting
+     * from the first id of the range, so orders before the range are not read.
+     *
+     * @param firstId first id of the range, inclusive.
+     * @param lastId last id of the range, inclusive.
+     * @return number of orders sent for execution.
+     * @throws InterruptedException if thread is interrupted.
      */
-    public int sendToExecution(int limit) {
-        val activeOrdersForExecution = this.orderRepository.findOrdersForExecution(limit);
-        val result = activeOrdersForExecution.size();
-        this.queue.addAll(activeOrdersForExecution);
+    public int sendToExecution(final long firstId, final long lastId) throws InterruptedException {
+        return this.sendToExecution(firstId - 1, lastId, Integer.MAX_VALUE);
+    }
+
+    private int sendToExecution(final long afterId, final long lastId, final int limit)
+            throws InterruptedException {
+        var result = 0;
+        var found = 0;
+        var previousId = afterId;
+        var hasMore = true;
+        while (hasMore && found < limit) {
+            val size = Math.min(PAGE_SIZE, limit - found);
+            val page = this.orderRepository.findOrderEntriesForExecution(previousId, size);
+            for (val entry : page) {
+                if (entry.getId() > lastId) {
+                    hasMore = false;
+                } else {
+                    if (this.lane(entry).offer(entry.getId())) {
+                        result++;
+                    }
+                    found++;
+                    previousId = entry.getId();
+                }
+            }
+            hasMore = hasMore && page.size() == size;
+        }
         log.debug("{} orders were added to the queue for subsequent execution", result);
         return result;
     }
 
+    /**
+     * Places committed orders, which were inserted bypassing the persistence context, in the in-memory
+     * order book, if it is used. Orders saved by the repository are placed by their execution.
+     *
+     * @param entries order book entries of the committed orders.
+     */
+    public void placeInBook(final List<OrderBookEntry> entries) {
+        entries.forEach(this.book);
+    }
+
+    /**
+     * Sends orders for execution again, if some orders were dropped because a queue was full.
+     * The interval between runs is set by the "ru.yakovlev.order.execution.sweep-interval" property.
+     *
+     * @throws InterruptedException if thread is interrupted.
+     */
+    @Scheduled(fixedDelayString = "${ru.yakovlev.order.execution.sweep-interval:PT10S}")
+    public void sweep() throws InterruptedException {
+        var dropped = false;
+        var capacity = 0;
+        for (val queue : this.lanes) {
+            dropped |= queue.resetDropped();
+            capacity += queue.capacity();
+        }
+        if (dropped) {
+            log.info("{} dropped orders were sent for execution again", this.sendToExecution(capacity));
+        }
+    }
+
+    /**
+     * Checks that new orders can be accepted by the order execution queues.
+     *
+     * @throws OrderExecutionQueueOverflowException if a queue is full and new orders are rejected.
+     */
+    public void checkCapacity() throws OrderExecutionQueueOverflowException {
+        for (val queue : this.lanes) {
+            queue.checkCapacity();
+        }
+    }
+
+    /**
+     * Checks that the order can be accepted by its order execution queue.
+     *
+     * @param order new order.
+     * @throws OrderExecutionQueueOverflowException if the queue is full and new orders are rejected.
+     */
+    public void checkCapacity(final Order order) throws OrderExecutionQueueOverflowException {
+        this.lane(OrderBookEntry.of(order)).checkCapacity();
+    }
+
+    private void send(final Long orderId) {
+        this.busyWorkers.incrementAndGet();
+        final long start = System.nanoTime();
+        boolean result = false;
+        try {
+            result = this.orderFactory.apply(orderId).sendForExecution();
+        } finally {
+            final Timer timer;
+            if (result) {
+                timer = this.matched;
+            } else {
+                timer = this.unmatched;
+            }
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            this.busyWorkers.decrementAndGet();
+        }
+    }
+
+    private Timer matchingTimer(final String outcome, final MeterRegistry meterRegistry) {
+        return Timer.builder("order.matching")
+                .description("Time from taking an order from the queue to sending the found pair for execution")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private OrderExecutionQueue lane(final OrderBookEntry entry) {
+        return this.lanes.get(this.router.applyAsInt(entry));
+    }
+
 }
@@ -0,0 +1,75 @@
+package ru.yakovlev.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Number of orders on execution exposed as the "order.on.execution" gauge. The number is maintained
+ * by the execution, so the gauge does not count orders in the database. Orders are put on execution
+ * and taken off by separate transactions, the number is changed after their commits. The orders are
+ * counted in the database only once, when the number is initialized.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Component
+public class OrdersOnExecution {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicBoolean initialized = new AtomicBoolean();
+
+    /**
+     * Constructor.
+     *
+     * @param meterRegistry registry of the gauge.
+     */
+    public OrdersOnExecution(final MeterRegistry meterRegistry) {
+        Gauge.builder("order.on.execution", this.count, AtomicLong::get)
+                .description("Orders on execution, steady growth means stuck executions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sets the number of orders on execution, if it has not been set yet.
+     *
+     * @param counter counts orders on execution in the database.
+     */
+    public void initialize(final LongSupplier counter) {
+        if (this.initialized.compareAndSet(false, true)) {
+            this.count.set(counter.getAsLong());
+        }
+    }
+
+    /**
+     * Changes the number of orders on execution after the commit of the current transaction,
+     * or at once if there is no transaction.
+     *
+     * @param delta number of orders put on execution, negative if orders are taken off.
+     */
+    public void changeAfterCommit(final long delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count.addAndGet(delta);
+                }
+            });
+        } else {
+            this.count.addAndGet(delta);
+        }
+    }
+
+    /**
+     * Returns the number of orders on execution.
+     *
+     * @return number of orders on execution.
+     */
+    public long get() {
+        return this.count.get();
+    }
+}
@@ -28,8 +28,11 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -37,17 +40,23 @@ import lombok.Value;
 import lombok.extern.jackson.Jacksonized;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.hibernate.Session;
 import org.springframework.lang.NonNull;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.acls.domain.BasePermission;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yakovlev.entities.Order;
 import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.OrderBookEntry;
 import ru.yakovlev.repositories.OrderRepository;
+import ru.yakovlev.service.security.SecurityService;
 
 /**
  * Orders service.
@@ -59,8 +68,17 @@ import ru.yakovlev.repositories.OrderRepository;
 @AllArgsConstructor
 @Slf4j
 public class OrdersService {
+    /**
+     * Number of inserts sent by one JDBC batch, it matches the allocation size of order identifiers.
+     */
+    private static final int JDBC_BATCH_SIZE = 50;
+
     private final OrderRepository orderRepository;
     private final PermissionEvaluator permissionEvaluator;
+    private final OrdersForExecution ordersForExecution;
+    private final EntityManager entityManager;
+    private final SecurityService securityService;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Cancels order execution.
@@ -81,7 +99,44 @@ public class OrdersService {
     }
 
     /**
-     * Creates orders.
+     * Returns the current version of the order without loading it.
+     *
+     * @param id order id.
+     * @return version of the order or empty if the order does not exist or the user has no rights to read it.
+     */
+    public Optional<Integer> version(final Long id) {
+        val authentication = SecurityContextHolder.getContext().getAuthentication();
+        final Optional<Integer> result;
+        if (this.permissionEvaluator.hasPermission(authentication, id, Order.class.getName(), BasePermission.READ)) {
+            result = this.orderRepository.findVersionById(id);
+        } else {
+            result = Optional.empty();
+        }
+        return result;
+    }
+
+    /**
+     * Creates validated orders in one transaction. Orders are inserted by JDBC batches and are put in
+     * the execution queues after the commit.
+     *
+     * @param orders new orders.
+     * @return created orders.
+     * @throws OrderExecutionQueueOverflowException if an order execution queue is full and new orders are rejected.
+     */
+    @Transactional
+    public List<Order> createBatch(final List<Order> orders) throws OrderExecutionQueueOverflowException {
+        for (val order : orders) {
+            this.ordersForExecution.checkCapacity(order);
+        }
+        this.entityManager.unwrap(Session.class).setJdbcBatchSize(JDBC_BATCH_SIZE);
+        return this.orderRepository.saveAll(orders);
+    }
+
+    /**
+     * Creates orders. In the bulk seed mode orders of a batch and their access control lists are copied
+     * to the database in one transaction bypassing the persistence context and are placed in the in-memory
+     * order book after the commit, orders that can be executed are sent for execution by pages after all
+     * batches, the pages are read from the first to the last seeded id.
      *
      * @param params create orders parameters.
      * @throws InterruptedException if the thread was interrupted.
@@ -104,15 +159,51 @@ public class OrdersService {
         final LongSupplier quantitySupplier =
                 () -> (long) (params.getMinQuantity() + additionalQuantity * Math.random());
         final var batchSize = params.getBatchSize();
+        final String owner = this.securityService.currentUsername();
+        long firstId = Long.MAX_VALUE;
+        long lastId = Long.MIN_VALUE;
         for (int i = 0; i < params.getNumberOfBatches(); i++) {
             final List<Order> orders = new ArrayList<>(batchSize);
             for (int y = 0; y < batchSize; y++) {
-                orders.add(new Order(typeSupplier.get(), priceSupplier.get(), quantitySupplier.getAsLong()));
+                orders.add(new Order(
+                        params.getSymbol(), typeSupplier.get(), priceSupplier.get(), quantitySupplier.getAsLong()));
+            }
+            if (params.isBulkSeed()) {
+                orders.forEach(order -> order.setOwner(owner));
+                final List<Long> ids = this.transactionTemplate.execute(status -> this.copyOrders(orders));
+                this.ordersForExecution.placeInBook(bookEntries(orders, ids));
+                for (final Long id : ids) {
+                    firstId = Math.min(firstId, id);
+                    lastId = Math.max(lastId, id);
+                }
+            } else {
+                this.orderRepository.saveAll(orders);
             }
-            this.orderRepository.saveAll(orders);
             log.trace("Создано {} ордеров", batchSize);
             Thread.sleep(params.getDelayBetweenBatches());
         }
+        if (firstId <= lastId) {
+            log.debug("{} seeded orders were sent for execution",
+                    this.ordersForExecution.sendToExecution(firstId, lastId));
+        }
+    }
+
+    private List<Long> copyOrders(final List<Order> orders) {
+        final List<Long> result = this.orderRepository.copyAll(orders);
+        final List<ObjectIdentity> identities = result.stream()
+                .map(id -> new ObjectIdentityImpl(Order.class, id))
+                .collect(Collectors.toList());
+        this.securityService.copyAcls(identities);
+        return result;
+    }
+
+    private static List<OrderBookEntry> bookEntries(final List<Order> orders, final List<Long> ids) {
+        final List<OrderBookEntry> result = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            val order = orders.get(i);
+            result.add(new OrderBookEntry(ids.get(i), order.getSymbol(), order.getType(), order.getPrice()));
+        }
+        return result;
     }
 
     /**
@@ -126,6 +217,11 @@ public class OrdersService {
     @Builder
     public static class CreateOrdersParams {
 
+        /**
+         * Symbol of orders, the default symbol is used if it is not specified.
+         */
+        String symbol;
+
         /**
          * Randomly selects the type of order.
          */
@@ -146,6 +242,12 @@ public class OrdersService {
          * Delay in milliseconds between batch creation.
          */
         int delayBetweenBatches;
+
+        /**
+         * Copies orders to the database by the PostgreSQL COPY instead of persisting them one by one,
+         * it is intended for seeding large order books for load tests.
+         */
+        boolean bulkSeed;
     }
 
 }
@@ -0,0 +1,60 @@
+package ru.yakovlev.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.ToIntFunction;
+import ru.yakovlev.model.OrderBookEntry;
+
+/**
+ * Price bands of the order book. The band of a price is the number of boundaries which are less than or equal
+ * to the price, so n boundaries give n + 1 bands.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+public class PriceBands implements ToIntFunction<OrderBookEntry> {
+    private final List<BigDecimal> boundaries;
+
+    /**
+     * Constructor.
+     *
+     * @param boundaries boundaries of price bands in any order.
+     */
+    public PriceBands(final Collection<BigDecimal> boundaries) {
+        this.boundaries = List.copyOf(new TreeSet<>(boundaries));
+    }
+
+    @Override
+    public int applyAsInt(final OrderBookEntry entry) {
+        return this.band(entry.getPrice());
+    }
+
+    /**
+     * Returns the band of the price.
+     *
+     * @param price order price.
+     * @return band index.
+     */
+    public int band(final BigDecimal price) {
+        final int index = Collections.binarySearch(this.boundaries, price);
+        final int result;
+        if (index >= 0) {
+            result = index + 1;
+        } else {
+            result = -index - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bands.
+     *
+     * @return number of bands.
+     */
+    public int size() {
+        return this.boundaries.size() + 1;
+    }
+}
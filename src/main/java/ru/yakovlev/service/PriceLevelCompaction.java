@@ -0,0 +1,35 @@
+package ru.yakovlev.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.repositories.OrderRepository;
+
+/**
+ * Background compaction of price level changes. The trigger on the order table only appends changes
+ * of price levels, so transactions of orders never wait for each other on a price level row, the compaction
+ * folds them into the price_level table. Concurrent compactions of application instances are skipped.
+ * The interval between runs is set by the "ru.yakovlev.depth-of-market.compaction-interval" property.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class PriceLevelCompaction {
+    private final OrderRepository orderRepository;
+
+    /**
+     * Folds appended changes into price levels.
+     *
+     * @return number of changed price levels.
+     */
+    @Scheduled(fixedDelayString = "${ru.yakovlev.depth-of-market.compaction-interval:PT1S}")
+    public long compact() {
+        final long result = this.orderRepository.compactPriceLevels();
+        log.trace("{} price levels were compacted", result);
+        return result;
+    }
+}
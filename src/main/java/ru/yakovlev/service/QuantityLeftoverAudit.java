@@ -0,0 +1,54 @@
+package ru.yakovlev.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.config.OrderExecutionProperties;
+import ru.yakovlev.repositories.OrderRepository;
+
+/**
+ * Background audit of order quantity leftovers. Execution trusts the quantity leftover of the order,
+ * the audit periodically compares it with the sum of transfers of the order and reports the drift.
+ * Each run checks the next batch of orders by id, after the last order it starts over.
+ * The interval between runs is set by the "ru.yakovlev.order.execution.audit-interval" property.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class QuantityLeftoverAudit {
+    private final OrderRepository orderRepository;
+    private final OrderExecutionProperties properties;
+    private final AtomicLong lastId = new AtomicLong();
+
+    /**
+     * Checks the next batch of orders.
+     *
+     * @return number of orders with the drift of the quantity leftover.
+     */
+    @Scheduled(fixedDelayString = "${ru.yakovlev.order.execution.audit-interval:PT1M}")
+    public long audit() {
+        val audits = this.orderRepository.findQuantityAudits(
+                this.lastId.get(), PageRequest.of(0, this.properties.getAuditBatchSize()));
+        if (audits.isEmpty()) {
+            this.lastId.set(0);
+        } else {
+            this.lastId.set(audits.get(audits.size() - 1).getId());
+        }
+        var result = 0L;
+        for (val audit : audits) {
+            if (audit.getDrift() != 0) {
+                result++;
+                log.warn("Quantity leftover {} of order {} differs from transfers by {}",
+                        audit.getQuantityLeftover(), audit.getId(), audit.getDrift());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yakovlev.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.jdbc.LookupStrategy;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.config.AclCacheProperties;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.repositories.OrderRepository;
+
+/**
+ * Loads access control lists of the most recent orders of an authenticated user into the ACL cache,
+ * so the first reads of these orders are authorized without database queries. Basic authentication
+ * happens on every request, so a user is warmed up once per the ACL cache expiry.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@Component
+@Slf4j
+public class AclCacheWarmUp {
+    private final OrderRepository orderRepository;
+    private final LookupStrategy lookupStrategy;
+    private final TaskExecutor taskExecutor;
+    private final int orders;
+    private final Cache<String, Boolean> warmedUp;
+    private final Counter loaded;
+
+    /**
+     * Constructor.
+     *
+     * @param orderRepository order repository.
+     * @param lookupStrategy lookup strategy filling the ACL cache.
+     * @param taskExecutor executor loading access control lists.
+     * @param properties ACL cache properties.
+     * @param meterRegistry registry of the warm-up metrics.
+     */
+    public AclCacheWarmUp(final OrderRepository orderRepository, final LookupStrategy lookupStrategy,
+                          @Qualifier("taskExecutor") final TaskExecutor taskExecutor,
+                          final AclCacheProperties properties, final MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.lookupStrategy = lookupStrategy;
+        this.taskExecutor = taskExecutor;
+        this.orders = properties.getWarmUpOrders();
+        this.warmedUp = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .maximumSize(properties.getMaximumSize())
+                .build();
+        this.loaded = meterRegistry.counter("acl.cache.warm.up.orders");
+    }
+
+    /**
+     * Schedules loading of access control lists of the authenticated user's orders.
+     *
+     * @param event authentication success event.
+     */
+    @EventListener
+    public void onAuthenticationSuccess(final AuthenticationSuccessEvent event) {
+        final String username = event.getAuthentication().getName();
+        if (this.orders > 0 && Objects.isNull(this.warmedUp.asMap().putIfAbsent(username, Boolean.TRUE))) {
+            this.taskExecutor.execute(() -> this.warmUp(username));
+        }
+    }
+
+    private void warmUp(final String username) {
+        final List<ObjectIdentity> identities = this.orderRepository
+                .findIdsByOwner(username, PageRequest.of(0, this.orders)).stream()
+                .map(id -> new ObjectIdentityImpl(Order.class, id))
+                .collect(Collectors.toList());
+        if (!identities.isEmpty()) {
+            this.lookupStrategy.readAclsById(identities, null);
+            this.loaded.increment(identities.size());
+            log.debug("Access control lists of {} orders of {} are loaded", identities.size(), username);
+        }
+    }
+}
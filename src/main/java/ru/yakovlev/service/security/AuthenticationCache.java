@@ -0,0 +1,103 @@
+package ru.yakovlev.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.val;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Bounded cache of successful authentications by user name and password. Credentials are stored only as
+ * HMAC digests with a key generated at startup, so the cache does not keep passwords and its keys are
+ * useless outside the application instance.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+public class AuthenticationCache {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, Authentication> authentications;
+    private final SecretKeySpec key;
+
+    /**
+     * Constructor.
+     *
+     * @param maximumSize maximum number of cached authentications.
+     * @param expireAfterWrite time after which credentials are verified again.
+     * @param meterRegistry registry of the cache metrics.
+     */
+    public AuthenticationCache(final long maximumSize, final Duration expireAfterWrite,
+                               final MeterRegistry meterRegistry) {
+        this.authentications = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        val secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        CaffeineCacheMetrics.monitor(meterRegistry, this.authentications, "authentication");
+    }
+
+    /**
+     * Returns the authentication cached for the credentials.
+     *
+     * @param credentials user name and password.
+     * @return successful authentication or empty if credentials were not verified yet.
+     */
+    public Optional<Authentication> get(final UsernamePasswordAuthenticationToken credentials) {
+        return Optional.ofNullable(this.authentications.getIfPresent(this.digest(credentials)));
+    }
+
+    /**
+     * Caches the successful authentication.
+     *
+     * @param credentials verified user name and password.
+     * @param authentication successful authentication.
+     */
+    public void put(final UsernamePasswordAuthenticationToken credentials, final Authentication authentication) {
+        this.authentications.put(this.digest(credentials), authentication);
+    }
+
+    /**
+     * Removes authentications of the user, credentials of the user will be verified again.
+     *
+     * @param username user name.
+     */
+    public void evict(final String username) {
+        this.authentications.asMap().values().removeIf(authentication -> username.equals(authentication.getName()));
+    }
+
+    /**
+     * Removes all authentications.
+     */
+    public void evictAll() {
+        this.authentications.invalidateAll();
+    }
+
+    private String digest(final UsernamePasswordAuthenticationToken credentials) {
+        try {
+            val mac = Mac.getInstance(ALGORITHM);
+            mac.init(this.key);
+            mac.update(credentials.getName().getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(String.valueOf(Objects.requireNonNullElse(credentials.getCredentials(), ""))
+                    .getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ALGORITHM + " is not available", ex);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yakovlev.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.acls.domain.SidRetrievalStrategyImpl;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Values derived from an authentication that are computed once per authentication: authorities reachable
+ * by the role hierarchy and security identities of access control lists. Authorities of an authentication
+ * do not change, so the values are kept while the authentication is referenced by a security context,
+ * authentications are compared by identity. Hits and misses are exposed as cache metrics
+ * "user-authorities" and "acl-sids".
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+public class AuthenticationMemo implements SidRetrievalStrategy {
+    private static final long MAXIMUM_SIZE = 10_000;
+
+    private final RoleHierarchy roleHierarchy;
+    private final SidRetrievalStrategy sidRetrievalStrategy = new SidRetrievalStrategyImpl();
+    private final Cache<Authentication, Set<String>> authorities = newCache();
+    private final Cache<Authentication, List<Sid>> sids = newCache();
+
+    /**
+     * Constructor.
+     *
+     * @param roleHierarchy role hierarchy.
+     * @param meterRegistry registry of the hit and miss counters.
+     */
+    public AuthenticationMemo(final RoleHierarchy roleHierarchy, final MeterRegistry meterRegistry) {
+        this.roleHierarchy = roleHierarchy;
+        CaffeineCacheMetrics.monitor(meterRegistry, this.authorities, "user-authorities");
+        CaffeineCacheMetrics.monitor(meterRegistry, this.sids, "acl-sids");
+    }
+
+    /**
+     * Returns names of the authorities of the authentication, given the role hierarchy.
+     *
+     * @param authentication authentication.
+     * @return unmodifiable set of authority names.
+     */
+    public Set<String> authorities(final Authentication authentication) {
+        return this.authorities.get(authentication, key -> this.roleHierarchy
+                .getReachableGrantedAuthorities(key.getAuthorities()).stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toUnmodifiableSet()));
+    }
+
+    @Override
+    public List<Sid> getSids(final Authentication authentication) {
+        return this.sids.get(authentication, key -> List.copyOf(this.sidRetrievalStrategy.getSids(key)));
+    }
+
+    private static <V> Cache<Authentication, V> newCache() {
+        return Caffeine.newBuilder()
+                .weakKeys()
+                .maximumSize(MAXIMUM_SIZE)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yakovlev.service.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import lombok.Value;
+import lombok.val;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.jdbc.JdbcMutableAclService;
+import org.springframework.security.acls.jdbc.LookupStrategy;
+import org.springframework.security.acls.model.AclCache;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Permission;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import ru.yakovlev.repositories.PostgresCopy;
+
+/**
+ * Mutable ACL service that can create access control lists of many objects with the same entries
+ * by a fixed number of JDBC batch statements or COPY commands. Primary keys of object identities are taken from
+ * the PostgreSQL sequence by one query instead of reading the identity after each insert.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+public class BatchMutableAclService extends JdbcMutableAclService {
+    private static final String IDENTITY_TABLE = "acl_object_identity";
+    private static final List<String> IDENTITY_COLUMNS = List.of(
+            "id", "object_id_class", "object_id_identity", "owner_sid", "entries_inheriting");
+    private static final String ENTRY_TABLE = "acl_entry";
+    private static final List<String> ENTRY_COLUMNS = List.of(
+            "acl_object_identity", "ace_order", "sid", "mask", "granting", "audit_success", "audit_failure");
+
+    /**
+     * Constructor.
+     *
+     * @param dataSource data source.
+     * @param lookupStrategy lookup strategy.
+     * @param aclCache ACL cache.
+     */
+    public BatchMutableAclService(final DataSource dataSource, final LookupStrategy lookupStrategy,
+                                  final AclCache aclCache) {
+        super(dataSource, lookupStrategy, aclCache);
+    }
+
+    /**
+     * Creates access control lists of objects owned by the current user. Must be called within a transaction.
+     *
+     * @param identities identities of objects without access control lists.
+     * @param entries granted permissions in the order of entries.
+     */
+    public void createAcls(final List<ObjectIdentity> identities, final Map<Sid, Permission> entries) {
+        Assert.isTrue(TransactionSynchronizationManager.isActualTransactionActive(), "Transaction must be running");
+        if (!identities.isEmpty()) {
+            final AclRows rows = this.aclRows(identities, entries);
+            this.jdbcOperations.batchUpdate(insert(IDENTITY_TABLE, IDENTITY_COLUMNS), rows.getIdentities());
+            this.jdbcOperations.batchUpdate(insert(ENTRY_TABLE, ENTRY_COLUMNS), rows.getEntries());
+        }
+    }
+
+    /**
+     * Creates access control lists of objects owned by the current user by the PostgreSQL COPY, which is
+     * faster than batch statements for large numbers of objects. Must be called within a transaction.
+     *
+     * @param identities identities of objects without access control lists.
+     * @param entries granted permissions in the order of entries.
+     */
+    public void copyAcls(final List<ObjectIdentity> identities, final Map<Sid, Permission> entries) {
+        Assert.isTrue(TransactionSynchronizationManager.isActualTransactionActive(), "Transaction must be running");
+        if (!identities.isEmpty()) {
+            final AclRows rows = this.aclRows(identities, entries);
+            PostgresCopy.copyIn(this.jdbcOperations, IDENTITY_TABLE, IDENTITY_COLUMNS, rows.getIdentities());
+            PostgresCopy.copyIn(this.jdbcOperations, ENTRY_TABLE, ENTRY_COLUMNS, rows.getEntries());
+        }
+    }
+
+    private AclRows aclRows(final List<ObjectIdentity> identities, final Map<Sid, Permission> entries) {
+        val authentication = SecurityContextHolder.getContext().getAuthentication();
+        final Long ownerId = this.createOrRetrieveSidPrimaryKey(new PrincipalSid(authentication), true);
+        final Map<String, Long> classIds = new HashMap<>();
+        for (val identity : identities) {
+            classIds.computeIfAbsent(identity.getType(), type -> this.createOrRetrieveClassPrimaryKey(
+                    type, true, identity.getIdentifier().getClass()));
+        }
+        final Map<Long, Permission> sidEntries = new LinkedHashMap<>();
+        entries.forEach((sid, permission) -> sidEntries.put(
+                this.createOrRetrieveSidPrimaryKey(sid, true), permission));
+        final List<Long> ids = this.jdbcOperations.queryForList(
+                "SELECT nextval('acl_object_identity_id_seq') FROM generate_series(1, ?)",
+                Long.class, identities.size());
+        final List<Object[]> identityRows = new ArrayList<>(identities.size());
+        final List<Object[]> entryRows = new ArrayList<>(identities.size() * sidEntries.size());
+        for (int i = 0; i < identities.size(); i++) {
+            val identity = identities.get(i);
+            identityRows.add(new Object[] {ids.get(i), classIds.get(identity.getType()),
+                identity.getIdentifier().toString(), ownerId, Boolean.TRUE});
+            int order = 0;
+            for (val entry : sidEntries.entrySet()) {
+                entryRows.add(new Object[] {ids.get(i), order, entry.getKey(), entry.getValue().getMask(),
+                    Boolean.TRUE, Boolean.FALSE, Boolean.FALSE});
+                order++;
+            }
+        }
+        return new AclRows(identityRows, entryRows);
+    }
+
+    private static String insert(final String table, final List<String> columns) {
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+
+    /**
+     * Rows of object identities and their entries.
+     *
+     * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+     * @since 0.11.0
+     */
+    @Value
+    private static class AclRows {
+        List<Object[]> identities;
+        List<Object[]> entries;
+    }
+}
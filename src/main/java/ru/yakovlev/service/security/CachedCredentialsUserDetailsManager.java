@@ -0,0 +1,74 @@
+package ru.yakovlev.service.security;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.provisioning.JdbcUserDetailsManager;
+
+/**
+ * User details manager that removes cached authentications of users whose password, authorities or groups
+ * are changed.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@AllArgsConstructor
+public class CachedCredentialsUserDetailsManager extends JdbcUserDetailsManager {
+    private final AuthenticationCache cache;
+
+    @Override
+    public void updateUser(final UserDetails user) {
+        super.updateUser(user);
+        this.cache.evict(user.getUsername());
+    }
+
+    @Override
+    public void deleteUser(final String username) {
+        super.deleteUser(username);
+        this.cache.evict(username);
+    }
+
+    @Override
+    public void changePassword(final String oldPassword, final String newPassword) {
+        super.changePassword(oldPassword, newPassword);
+        this.cache.evict(SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+
+    @Override
+    public void addUserToGroup(final String username, final String groupName) {
+        super.addUserToGroup(username, groupName);
+        this.cache.evict(username);
+    }
+
+    @Override
+    public void removeUserFromGroup(final String username, final String groupName) {
+        super.removeUserFromGroup(username, groupName);
+        this.cache.evict(username);
+    }
+
+    @Override
+    public void deleteGroup(final String groupName) {
+        super.deleteGroup(groupName);
+        this.cache.evictAll();
+    }
+
+    @Override
+    public void addGroupAuthority(final String groupName, final GrantedAuthority authority) {
+        super.addGroupAuthority(groupName, authority);
+        this.cache.evictAll();
+    }
+
+    @Override
+    public void removeGroupAuthority(final String groupName, final GrantedAuthority authority) {
+        super.removeGroupAuthority(groupName, authority);
+        this.cache.evictAll();
+    }
+
+    @Override
+    public void createGroup(final String groupName, final List<GrantedAuthority> authorities) {
+        super.createGroup(groupName, authorities);
+        this.cache.evictAll();
+    }
+}
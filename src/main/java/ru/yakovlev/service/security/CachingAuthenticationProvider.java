@@ -0,0 +1,44 @@
+package ru.yakovlev.service.security;
+
+import lombok.AllArgsConstructor;
+import lombok.val;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Authentication provider that verifies user name and password by the delegate only if they are not found
+ * in the cache of verified credentials, so repeated requests with Basic authentication skip password hashing.
+ *
+ * @author Yakovlev Aleander (sanyakovlev@yandex.ru)
+ * @since 0.11.0
+ */
+@AllArgsConstructor
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+    private final AuthenticationProvider delegate;
+    private final AuthenticationCache cache;
+
+    @Override
+    public Authentication authenticate(final Authentication authentication) throws AuthenticationException {
+        val credentials = (UsernamePasswordAuthenticationToken) authentication;
+        final Authentication result;
+        val cached = this.cache.get(credentials);
+        if (cached.isPresent()) {
+            val token = new UsernamePasswordAuthenticationToken(
+                    cached.get().getPrincipal(), null, cached.get().getAuthorities());
+            token.setDetails(credentials.getDetails());
+            result = token;
+        } else {
+            result = this.delegate.authenticate(credentials);
+            this.cache.put(credentials, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(final Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication)
+                && this.delegate.supports(authentication);
+    }
+}
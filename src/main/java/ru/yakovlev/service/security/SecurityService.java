@@ -24,21 +24,31 @@
 
 package ru.yakovlev.service.security;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.val;
-import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.lang.Nullable;
 import org.springframework.security.acls.domain.BasePermission;
 import org.springframework.security.acls.domain.CumulativePermission;
 import org.springframework.security.acls.domain.GrantedAuthoritySid;
 import org.springframework.security.acls.domain.ObjectIdentityImpl;
-import org.springframework.security.acls.model.MutableAclService;
-import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Permission;
+import org.springframework.security.acls.model.Sid;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
 
 /**
  * Security service.
@@ -49,11 +59,18 @@ import org.springframework.stereotype.Service;
 @Service
 @AllArgsConstructor
 public class SecurityService {
-    private final RoleHierarchy roleHierarchy;
-    private final MutableAclService aclService;
 
     /**
-     * Return all user authorities, given the role hierarchy.
+     * Authority that can read all orders visible to supervisors.
+     */
+    public static final String SUPERVISOR = "ROLE_SUPERVISOR";
+
+    private final AuthenticationMemo authenticationMemo;
+    private final BatchMutableAclService aclService;
+    private final EntityManager entityManager;
+
+    /**
+     * Return all user authorities, given the role hierarchy. Authorities are computed once per authentication.
      *
      * @return all user authorities, given the role hierarchy.
      */
@@ -63,30 +80,91 @@ public class SecurityService {
         if (Objects.isNull(authentication)) {
             result = Collections.emptyList();
         } else {
-            val authorities = this.roleHierarchy.getReachableGrantedAuthorities(authentication.getAuthorities());
-            result = authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+            result = this.authenticationMemo.authorities(authentication);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the name of the current user.
+     *
+     * @return user name or null if the user is not authenticated.
+     */
+    @Nullable
+    public String currentUsername() {
+        val authentication = SecurityContextHolder.getContext().getAuthentication();
+        final String result;
+        if (Objects.isNull(authentication)) {
+            result = null;
+        } else {
+            result = authentication.getName();
         }
         return result;
     }
 
     /**
-     * Create access control list for given entity.
+     * Checks whether the current user has the supervisor authority, given the role hierarchy.
      *
-     * @param entity entity.
+     * @return true if the current user is a supervisor.
      */
-    public void createAcl(Object entity) {
+    public boolean isSupervisor() {
+        return this.userAuthorities().contains(SUPERVISOR);
+    }
+
+    /**
+     * Create access control list for given entity. Access control lists are created by batch statements
+     * for all entities of the transaction before its completion, after the persistence context is flushed,
+     * so entities inserted by the flush at the commit are included. Must be called within a transaction.
+     *
+     * @param entity persisted entity.
+     */
+    public void createAcl(final Object entity) {
+        Assert.isTrue(TransactionSynchronizationManager.isActualTransactionActive(), "Transaction must be running");
+        this.pendingAcls().add(new ObjectIdentityImpl(entity));
+    }
+
+    /**
+     * Creates access control lists of entities inserted in the current transaction bypassing the persistence
+     * context, lists are copied by the PostgreSQL COPY.
+     *
+     * @param identities identities of inserted entities.
+     */
+    public void copyAcls(final List<ObjectIdentity> identities) {
+        this.aclService.copyAcls(identities, this.entries());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ObjectIdentity> pendingAcls() {
+        var result = (List<ObjectIdentity>) TransactionSynchronizationManager.getResource(this);
+        if (Objects.isNull(result)) {
+            final List<ObjectIdentity> identities = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, identities);
+            this.entityManager.unwrap(SessionImplementor.class).getActionQueue().registerProcess(session -> {
+                this.aclService.createAcls(identities, this.entries());
+                identities.clear();
+            });
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SecurityService.this);
+                }
+            });
+            result = identities;
+        }
+        return result;
+    }
+
+    private Map<Sid, Permission> entries() {
         val ownerPermission = new CumulativePermission();
         ownerPermission.set(BasePermission.READ);
         ownerPermission.set(BasePermission.WRITE);
         ownerPermission.set(BasePermission.CREATE);
         ownerPermission.set(BasePermission.DELETE);
         ownerPermission.set(BasePermission.ADMINISTRATION);
-        val identity = new ObjectIdentityImpl(entity);
-        val acl = this.aclService.createAcl(identity);
-        val ownerSid = acl.getOwner();
-        acl.insertAce(acl.getEntries().size(), ownerPermission, ownerSid, true);
-        acl.insertAce(acl.getEntries().size(), BasePermission.READ, new GrantedAuthoritySid("ROLE_SUPERVISOR"), true);
-        this.aclService.updateAcl(acl);
+        final Map<Sid, Permission> result = new LinkedHashMap<>();
+        result.put(new PrincipalSid(SecurityContextHolder.getContext().getAuthentication()), ownerPermission);
+        result.put(new GrantedAuthoritySid(SUPERVISOR), BasePermission.READ);
+        return result;
     }
 
 }
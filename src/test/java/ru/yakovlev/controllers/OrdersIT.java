@@ -0,0 +1,64 @@
+package ru.yakovlev.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers(disabledWithoutDocker = true)
+class OrdersIT {
+    private static final String CSRF_COOKIE = "XSRF-TOKEN";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @DynamicPropertySource
+    static void datasource(final DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Test
+    @DisplayName("The owner reads the created order, other users do not")
+    void whenOrderIsCreatedThenOwnerReadsIt() {
+        val owner = this.restTemplate.withBasicAuth("user2", "password");
+        val created = owner.postForEntity("/orders",
+                new HttpEntity<>(Map.of("type", "BUY", "price", 10, "quantity", 5), this.csrfHeaders(owner)),
+                Map.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        val location = created.getHeaders().getLocation();
+        assertThat(owner.getForEntity(location, Map.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(this.restTemplate.withBasicAuth("user3", "password").getForEntity(location, Map.class)
+                .getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    private HttpHeaders csrfHeaders(final TestRestTemplate template) {
+        val token = template.getForEntity("/", String.class).getHeaders().get(HttpHeaders.SET_COOKIE).stream()
+                .filter(cookie -> cookie.startsWith(CSRF_COOKIE + "="))
+                .map(cookie -> cookie.substring(CSRF_COOKIE.length() + 1, cookie.indexOf(';')))
+                .findFirst()
+                .orElseThrow();
+        val result = new HttpHeaders();
+        result.add(HttpHeaders.COOKIE, CSRF_COOKIE + "=" + token);
+        result.add("X-XSRF-TOKEN", token);
+        return result;
+    }
+}
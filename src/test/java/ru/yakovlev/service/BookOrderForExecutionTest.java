@@ -0,0 +1,64 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.Optional;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.OrderBookEntry;
+import ru.yakovlev.repositories.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class BookOrderForExecutionTest {
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderPairExecution orderPairExecution;
+    private OrderBook orderBook;
+    private Counter counterMisses;
+
+    @BeforeEach
+    void setUp() {
+        this.orderBook = new OrderBook(this.orderRepository);
+        this.orderBook.add(new OrderBookEntry(2L, Order.DEFAULT_SYMBOL, OrderType.SELL, BigDecimal.ONE));
+        this.counterMisses = new SimpleMeterRegistry().counter("order.matching.counter.misses");
+        val order = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY).price(BigDecimal.ONE)
+                .quantity(1).quantityLeftover(1).version(1).build();
+        when(this.orderRepository.findByIdForExecutionWithLock(1L)).thenReturn(Optional.of(order));
+        when(this.orderRepository.findByIdForExecutionWithSkipLocked(2L)).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("A counter order locked by another execution stays in the book")
+    void whenCounterOrderIsLockedThenItStaysInBook() {
+        when(this.orderRepository.isAvailableForExecution(2L)).thenReturn(true);
+        assertThat(this.orderForExecution().sendForExecution()).isFalse();
+        assertThat(this.orderBook.size()).isEqualTo(2);
+        assertThat(this.counterMisses.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A counter order that is no longer active is discarded from the book")
+    void whenCounterOrderIsCancelledThenItIsDiscarded() {
+        when(this.orderRepository.isAvailableForExecution(2L)).thenReturn(false);
+        assertThat(this.orderForExecution().sendForExecution()).isFalse();
+        assertThat(this.orderBook.size()).isEqualTo(1);
+        assertThat(this.counterMisses.count()).isZero();
+    }
+
+    private BookOrderForExecution orderForExecution() {
+        return new BookOrderForExecution(
+                1L, this.orderBook, this.orderRepository, this.orderPairExecution, this.counterMisses);
+    }
+}
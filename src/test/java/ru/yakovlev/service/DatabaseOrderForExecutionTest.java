@@ -0,0 +1,51 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.repositories.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseOrderForExecutionTest {
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderPairExecution orderPairExecution;
+
+    @Test
+    @DisplayName("The best priced counter order is executed even if it is in another price band")
+    void whenBestCounterOrderIsInAnotherBandThenItIsExecuted() {
+        val bands = new PriceBands(List.of(BigDecimal.valueOf(90), BigDecimal.valueOf(110)));
+        val bid = order(1L, OrderType.BUY, BigDecimal.valueOf(100));
+        val ask = order(2L, OrderType.SELL, BigDecimal.valueOf(50));
+        assertThat(bands.band(ask.getPrice())).isNotEqualTo(bands.band(bid.getPrice()));
+        when(this.orderRepository.findByIdForExecutionWithLock(1L)).thenReturn(Optional.of(bid));
+        when(this.orderRepository.findOrderForExecutionByOrderWithSkipLocked(bid, Sort.by("price")))
+                .thenReturn(Optional.of(ask));
+        val orderForExecution = new DatabaseOrderForExecution(1L, this.orderRepository, this.orderPairExecution,
+                new SimpleMeterRegistry().counter("order.matching.counter.misses"));
+        assertThat(orderForExecution.sendForExecution()).isTrue();
+        Mockito.verify(this.orderPairExecution).sendForExecution(eq(bid), eq(ask), any());
+    }
+
+    private static Order order(final long id, final OrderType type, final BigDecimal price) {
+        return Order.builder().id(id).symbol(Order.DEFAULT_SYMBOL).type(type).price(price)
+                .quantity(1).quantityLeftover(1).version(1).build();
+    }
+}
@@ -0,0 +1,169 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.DepthOfMarketEntry;
+import ru.yakovlev.model.DepthOfMarketQuery;
+import ru.yakovlev.model.DepthOfMarketUpdate;
+import ru.yakovlev.model.PriceLevelInfo;
+import ru.yakovlev.repositories.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class DepthOfMarketCacheTest {
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Test
+    @DisplayName("Price levels follow creation, partial execution and cancellation of orders")
+    void whenOrdersChangeThenPriceLevelsAreUpdated() {
+        val cache = new DepthOfMarketCache(this.orderRepository, new SimpleMeterRegistry());
+        cache.update(this.order(1L, OrderType.BUY, 10, 5, false, false, null));
+        cache.update(this.order(2L, OrderType.BUY, 10, 3, false, false, null));
+        cache.update(this.order(3L, OrderType.SELL, 11, 4, false, false, null));
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL)).containsExactly(
+                new PriceLevelInfo(BigDecimal.valueOf(10), OrderType.BUY, 2L, 8L),
+                new PriceLevelInfo(BigDecimal.valueOf(11), OrderType.SELL, 1L, 4L));
+        cache.update(this.order(1L, OrderType.BUY, 10, 2, false, false, 5L));
+        cache.update(this.order(3L, OrderType.SELL, 11, 4, false, true, 4L));
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL)).containsExactly(
+                new PriceLevelInfo(BigDecimal.valueOf(10), OrderType.BUY, 2L, 5L));
+        assertThat(cache.priceLevels("OTHER")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Changes of different transactions are applied in any order, a change is applied once")
+    void whenChangesArriveOutOfOrderThenPriceLevelsAreCorrect() {
+        val cache = new DepthOfMarketCache(this.orderRepository, new SimpleMeterRegistry());
+        val created = this.order(1L, OrderType.BUY, 10, 5, false, false, null);
+        cache.update(this.order(1L, OrderType.BUY, 10, 2, false, false, 5L));
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL)).isEmpty();
+        cache.update(created);
+        cache.update(created);
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL)).containsExactly(
+                new PriceLevelInfo(BigDecimal.valueOf(10), OrderType.BUY, 1L, 2L));
+    }
+
+    @Test
+    @DisplayName("The reconciliation corrects price levels that differ from the database")
+    void whenCacheDriftsThenReconciliationCorrectsIt() {
+        val cache = new DepthOfMarketCache(this.orderRepository, new SimpleMeterRegistry());
+        cache.update(this.order(1L, OrderType.BUY, 10, 5, false, false, null));
+        cache.update(this.order(2L, OrderType.SELL, 12, 5, false, false, null));
+        when(this.orderRepository.findDepthOfMarketEntries()).thenAnswer(invocation -> {
+            cache.update(this.order(9L, OrderType.SELL, 13, 1, false, false, null));
+            return List.of(
+                    new DepthOfMarketEntry(Order.DEFAULT_SYMBOL, OrderType.BUY, new BigDecimal("10.00"), 2L, 7L));
+        });
+        assertThat(cache.reconcile()).isEqualTo(2);
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL)).containsExactly(
+                new PriceLevelInfo(BigDecimal.valueOf(10), OrderType.BUY, 2L, 7L),
+                new PriceLevelInfo(BigDecimal.valueOf(13), OrderType.SELL, 1L, 1L));
+    }
+
+    @Test
+    @DisplayName("The reconciliation keeps price levels changed while the database was read")
+    void whenOrderIsCommittedDuringReconciliationThenItIsKept() {
+        val cache = new DepthOfMarketCache(this.orderRepository, new SimpleMeterRegistry());
+        cache.update(this.order(5L, OrderType.BUY, 10, 5, false, false, null));
+        when(this.orderRepository.findDepthOfMarketEntries()).thenAnswer(invocation -> {
+            cache.update(this.order(2L, OrderType.SELL, 12, 2, false, false, null));
+            cache.update(this.order(5L, OrderType.BUY, 10, 4, false, false, 5L));
+            return List.of(new DepthOfMarketEntry(Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.valueOf(10), 1L, 5L));
+        });
+        assertThat(cache.reconcile()).isZero();
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL)).containsExactly(
+                new PriceLevelInfo(BigDecimal.valueOf(10), OrderType.BUY, 1L, 4L),
+                new PriceLevelInfo(BigDecimal.valueOf(12), OrderType.SELL, 1L, 2L));
+    }
+
+    @Test
+    @DisplayName("A subscriber receives the snapshot and then only changed price levels")
+    void whenSubscribedThenChangedPriceLevelsArePassed() {
+        val cache = new DepthOfMarketCache(this.orderRepository, new SimpleMeterRegistry());
+        cache.update(this.order(1L, OrderType.BUY, 10, 5, false, false, null));
+        final List<DepthOfMarketUpdate> updates = new ArrayList<>();
+        final DepthOfMarketCache.Subscriber subscriber = updates::add;
+        val snapshot = cache.subscribe(Order.DEFAULT_SYMBOL, subscriber);
+        assertThat(snapshot).isEqualTo(new DepthOfMarketUpdate(1L,
+                List.of(new PriceLevelInfo(BigDecimal.valueOf(10), OrderType.BUY, 1L, 5L))));
+        cache.update(this.order(2L, OrderType.SELL, 11, 4, false, false, null));
+        cache.update(this.order(1L, OrderType.BUY, 10, 0, true, false, 5L));
+        cache.unsubscribe(Order.DEFAULT_SYMBOL, subscriber);
+        cache.update(this.order(3L, OrderType.SELL, 12, 1, false, false, null));
+        assertThat(updates).containsExactly(
+                new DepthOfMarketUpdate(2L,
+                        List.of(new PriceLevelInfo(BigDecimal.valueOf(11), OrderType.SELL, 1L, 4L))),
+                new DepthOfMarketUpdate(3L,
+                        List.of(new PriceLevelInfo(BigDecimal.valueOf(10), OrderType.BUY, 0L, 0L))));
+    }
+
+    @Test
+    @DisplayName("Top price levels of a side are returned best price first within the price range")
+    void whenDepthAndRangeAreRequestedThenBestPriceLevelsAreReturned() {
+        val cache = new DepthOfMarketCache(this.orderRepository, new SimpleMeterRegistry());
+        for (long price = 1; price <= 9; price++) {
+            cache.update(this.order(price, OrderType.BUY, price, 1, false, false, null));
+            cache.update(this.order(price + 10, OrderType.SELL, price + 10, 2, false, false, null));
+        }
+        val query = new DepthOfMarketQuery(2, null, BigDecimal.valueOf(7), null);
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL, OrderType.BUY, query)).containsExactly(
+                new PriceLevelInfo(BigDecimal.valueOf(7), OrderType.BUY, 1L, 1L),
+                new PriceLevelInfo(BigDecimal.valueOf(6), OrderType.BUY, 1L, 1L));
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL, OrderType.SELL, query)).isEmpty();
+        val range = new DepthOfMarketQuery(1, BigDecimal.valueOf(12), null, null);
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL, OrderType.SELL, range)).containsExactly(
+                new PriceLevelInfo(BigDecimal.valueOf(12), OrderType.SELL, 1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Adjacent price levels are grouped by the tick away from the opposite side")
+    void whenTickIsRequestedThenPriceLevelsAreGrouped() {
+        val cache = new DepthOfMarketCache(this.orderRepository, new SimpleMeterRegistry());
+        for (long price = 1; price <= 9; price++) {
+            cache.update(this.order(price, OrderType.BUY, price, 1, false, false, null));
+            cache.update(this.order(price + 10, OrderType.SELL, price + 10, 2, false, false, null));
+        }
+        val query = new DepthOfMarketQuery(2, null, null, BigDecimal.valueOf(5));
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL, OrderType.BUY, query)).containsExactly(
+                new PriceLevelInfo(BigDecimal.valueOf(5), OrderType.BUY, 5L, 5L),
+                new PriceLevelInfo(BigDecimal.valueOf(0), OrderType.BUY, 4L, 4L));
+        assertThat(cache.priceLevels(Order.DEFAULT_SYMBOL, OrderType.SELL, query)).containsExactly(
+                new PriceLevelInfo(BigDecimal.valueOf(15), OrderType.SELL, 5L, 10L),
+                new PriceLevelInfo(BigDecimal.valueOf(20), OrderType.SELL, 4L, 8L));
+    }
+
+    @Test
+    @DisplayName("The version changes only when price levels change")
+    void whenPriceLevelsChangeThenVersionChanges() {
+        val cache = new DepthOfMarketCache(this.orderRepository, new SimpleMeterRegistry());
+        val initial = cache.version(Order.DEFAULT_SYMBOL);
+        val order = this.order(1L, OrderType.BUY, 10, 5, false, false, null);
+        cache.update(order);
+        val changed = cache.version(Order.DEFAULT_SYMBOL);
+        cache.update(order);
+        assertThat(changed).isNotEqualTo(initial);
+        assertThat(cache.version(Order.DEFAULT_SYMBOL)).isEqualTo(changed);
+        assertThat(new DepthOfMarketCache(this.orderRepository, new SimpleMeterRegistry())
+                .version(Order.DEFAULT_SYMBOL)).isNotEqualTo(initial);
+    }
+
+    private Order order(final Long id, final OrderType type, final long price, final long leftover,
+                        final boolean fullyExecuted, final boolean cancelled, final Long applied) {
+        return Order.builder().id(id).symbol(Order.DEFAULT_SYMBOL).type(type).price(BigDecimal.valueOf(price))
+                .quantity(5).cancelled(cancelled).fullyExecuted(fullyExecuted).quantityLeftover(leftover)
+                .depthOfMarketLeftover(applied).build();
+    }
+}
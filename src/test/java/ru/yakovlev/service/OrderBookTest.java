@@ -0,0 +1,84 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.OrderBookEntry;
+import ru.yakovlev.repositories.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBookTest {
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Test
+    @DisplayName("When there is no crossing counter order, then the order rests in the book")
+    void whenNoCrossingCounterOrderThenOrderRestsInBook() {
+        val book = new OrderBook(this.orderRepository);
+        book.add(new OrderBookEntry(1L, Order.DEFAULT_SYMBOL, OrderType.SELL, BigDecimal.valueOf(11)));
+        val result = book.match(new OrderBookEntry(2L, Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.valueOf(10)));
+        assertThat(result).isEmpty();
+        assertThat(book.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("When buy order crosses asks, then the cheapest and then the oldest ask is chosen")
+    void whenBuyOrderCrossesAsksThenCheapestAndOldestAskIsChosen() {
+        val book = new OrderBook(this.orderRepository);
+        book.add(new OrderBookEntry(3L, Order.DEFAULT_SYMBOL, OrderType.SELL, BigDecimal.valueOf(9)));
+        book.add(new OrderBookEntry(2L, Order.DEFAULT_SYMBOL, OrderType.SELL, BigDecimal.valueOf(8)));
+        book.add(new OrderBookEntry(1L, Order.DEFAULT_SYMBOL, OrderType.SELL, BigDecimal.valueOf(9)));
+        val result = book.match(new OrderBookEntry(4L, Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.valueOf(10)));
+        assertThat(result).map(OrderBookEntry::getId).contains(2L);
+        assertThat(book.match(new OrderBookEntry(5L, Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.valueOf(9))))
+                .map(OrderBookEntry::getId).contains(1L);
+        assertThat(book.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("When sell order crosses bids, then the most expensive bid is chosen")
+    void whenSellOrderCrossesBidsThenMostExpensiveBidIsChosen() {
+        val book = new OrderBook(this.orderRepository);
+        book.add(new OrderBookEntry(1L, Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.valueOf(10)));
+        book.add(new OrderBookEntry(2L, Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.valueOf(12)));
+        val result = book.match(new OrderBookEntry(3L, Order.DEFAULT_SYMBOL, OrderType.SELL, BigDecimal.valueOf(10)));
+        assertThat(result).map(OrderBookEntry::getId).contains(2L);
+        assertThat(book.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("When the book is loaded, then it contains only orders from the database")
+    void whenBookIsLoadedThenItContainsOnlyOrdersFromDatabase() {
+        val book = new OrderBook(this.orderRepository);
+        book.add(new OrderBookEntry(1L, Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.valueOf(10)));
+        when(this.orderRepository.findOrderBookEntries()).thenReturn(List.of(
+                new OrderBookEntry(2L, Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.valueOf(10)),
+                new OrderBookEntry(3L, Order.DEFAULT_SYMBOL, OrderType.SELL, BigDecimal.valueOf(11))));
+        book.load();
+        assertThat(book.size()).isEqualTo(2);
+        book.remove(2L);
+        assertThat(book.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Orders of different symbols never match")
+    void whenSymbolsDifferThenOrdersDoNotMatch() {
+        val book = new OrderBook(this.orderRepository);
+        book.add(new OrderBookEntry(1L, "OTHER", OrderType.SELL, BigDecimal.valueOf(9)));
+        assertThat(book.match(new OrderBookEntry(2L, Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.valueOf(10))))
+                .isEmpty();
+        assertThat(book.match(new OrderBookEntry(3L, "OTHER", OrderType.BUY, BigDecimal.valueOf(10))))
+                .map(OrderBookEntry::getId).contains(1L);
+        assertThat(book.size()).isEqualTo(1);
+    }
+}
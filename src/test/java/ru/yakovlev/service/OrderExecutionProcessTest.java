@@ -27,12 +27,17 @@ package ru.yakovlev.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.function.Consumer;
 import lombok.val;
@@ -43,10 +48,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.SimpleTransactionStatus;
 import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.config.OrderExecutionProperties;
 import ru.yakovlev.entities.Order;
 import ru.yakovlev.entities.OrderExecution;
 import ru.yakovlev.entities.Transfer;
@@ -62,37 +74,53 @@ class OrderExecutionProcessTest {
     private TransferRepository transferRepository;
     @Mock
     private TransactionTemplate transactionTemplate;
+    @Mock
+    private TaskScheduler taskScheduler;
 
     @BeforeEach
     void prepareTransactionTemplate() {
-        doAnswer((invocation) -> {
-            final Consumer<TransactionStatus> consumer = invocation.getArgument(0);
-            consumer.accept(new SimpleTransactionStatus());
+        Mockito.lenient().doAnswer(this::runInTransaction).when(this.transactionTemplate).executeWithoutResult(any());
+    }
+
+    @BeforeEach
+    void prepareTaskScheduler() {
+        Mockito.lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
             return null;
-        }).when(this.transactionTemplate).executeWithoutResult(any());
+        }).when(this.taskScheduler).schedule(any(Runnable.class), any(Instant.class));
     }
 
     @Test
     @DisplayName("When from order is cancelled, then the execution is canceled")
     void whenFromOrderIsCancelledThenExecutionIsCancelled() {
-        val fromOrder = new Order(1L, OrderType.BUY, BigDecimal.valueOf(1), 1, true, true, false, 1, 1);
-        val toOrder = new Order(2L, OrderType.SELL, BigDecimal.valueOf(1), 2, true, false, false, 2, 1);
+        val fromOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(1)).quantity(1).onExecution(true).cancelled(true).quantityLeftover(1)
+                .version(1).build();
+        val toOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(1)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
         this.checkExecutionIsCancelled(fromOrder, toOrder);
     }
 
     @Test
     @DisplayName("When from order is cancelled, then the execution is canceled")
     void whenToOrderIsCancelledThenExecutionIsCancelled() {
-        val fromOrder = new Order(3L, OrderType.SELL, BigDecimal.valueOf(5), 3, true, false, false, 3, 1);
-        val toOrder = new Order(4L, OrderType.BUY, BigDecimal.valueOf(5), 4, true, true, false, 4, 1);
+        val fromOrder = Order.builder().id(3L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(5)).quantity(3).onExecution(true).quantityLeftover(3).version(1).build();
+        val toOrder = Order.builder().id(4L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(5)).quantity(4).onExecution(true).cancelled(true).quantityLeftover(4)
+                .version(1).build();
         this.checkExecutionIsCancelled(fromOrder, toOrder);
     }
 
     @Test
     @DisplayName("When both orders are cancelled, then the execution is canceled")
     void whenBothOrdersIsCancelledThenExecutionIsCancelled() {
-        val fromOrder = new Order(5L, OrderType.BUY, BigDecimal.valueOf(9), 6, true, true, false, 6, 1);
-        val toOrder = new Order(6L, OrderType.SELL, BigDecimal.valueOf(2), 6, true, true, false, 6, 1);
+        val fromOrder = Order.builder().id(5L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(9)).quantity(6).onExecution(true).cancelled(true).quantityLeftover(6)
+                .version(1).build();
+        val toOrder = Order.builder().id(6L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(2)).quantity(6).onExecution(true).cancelled(true).quantityLeftover(6)
+                .version(1).build();
         this.checkExecutionIsCancelled(fromOrder, toOrder);
     }
 
@@ -100,16 +128,16 @@ class OrderExecutionProcessTest {
     @DisplayName("When both orders have the same quantity of goods, then they must be fully executed")
     void whenBothOrdersHaveSameVolumeThenMustBeFullyExecuted() {
         val fromId = 7L;
-        val fromOrder = new Order(fromId, OrderType.SELL, BigDecimal.valueOf(3), 7L, true, false, false, 7, 1);
+        val fromOrder = Order.builder().id(fromId).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(3)).quantity(7L).onExecution(true).quantityLeftover(7).version(1).build();
         val toId = 8L;
-        val toOrder = new Order(toId, OrderType.BUY, BigDecimal.valueOf(3), 7L, true, false, false, 7, 1);
+        val toOrder = Order.builder().id(toId).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(3)).quantity(7L).onExecution(true).quantityLeftover(7).version(1).build();
         val executionId = 2L;
         val orderExecution = new OrderExecution(executionId, fromOrder, toOrder, 1);
         when(this.orderExecutionRepository.findById(orderExecution.getId())).thenReturn(Optional.of(orderExecution));
-        when(this.transferRepository.sumQuantityOfAllTransfersForOrder(fromId)).thenReturn(0L);
-        when(this.transferRepository.sumQuantityOfAllTransfersForOrder(toId)).thenReturn(0L);
-        val executionProcess = new OrderExecutionProcess(
-                this.orderExecutionRepository, this.transferRepository, this.transactionTemplate);
+        val registry = new SimpleMeterRegistry();
+        val executionProcess = this.executionProcess(OrderExecutionProperties.builder().build(), registry);
         executionProcess.execute(orderExecution);
         assertTrue(fromOrder.isFullyExecuted());
         assertTrue(toOrder.isFullyExecuted());
@@ -117,6 +145,7 @@ class OrderExecutionProcessTest {
         assertFalse(toOrder.isOnExecution());
         assertThat(fromOrder.getQuantityLeftover()).isZero();
         assertThat(toOrder.getQuantityLeftover()).isZero();
+        assertThat(registry.get("order.on.execution").gauge().value()).isEqualTo(-2);
         val captor = ArgumentCaptor.forClass(Transfer.class);
         Mockito.verify(this.transferRepository).save(captor.capture());
         val transfer = captor.getValue();
@@ -128,16 +157,17 @@ class OrderExecutionProcessTest {
     @DisplayName("when toOrder has less remaining quantity of goods, then only it must be fully executed")
     void whenToOrderHasLessQuantityThenOnlyItMustBeFullyExecuted() {
         val fromId = 9L;
-        val fromOrder = new Order(fromId, OrderType.BUY, BigDecimal.valueOf(11), 16L, true, false, false, 11, 1);
+        val fromOrder = Order.builder().id(fromId).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(11)).quantity(16L).onExecution(true).quantityLeftover(11).version(1)
+                .build();
         val toId = 10L;
-        val toOrder = new Order(toId, OrderType.SELL, BigDecimal.valueOf(11), 20L, true, false, false, 8, 1);
+        val toOrder = Order.builder().id(toId).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(11)).quantity(20L).onExecution(true).quantityLeftover(8).version(1)
+                .build();
         val executionId = 3L;
         val orderExecution = new OrderExecution(executionId, fromOrder, toOrder, 1);
         when(this.orderExecutionRepository.findById(orderExecution.getId())).thenReturn(Optional.of(orderExecution));
-        when(this.transferRepository.sumQuantityOfAllTransfersForOrder(fromId)).thenReturn(5L);
-        when(this.transferRepository.sumQuantityOfAllTransfersForOrder(toId)).thenReturn(12L);
-        val executionProcess = new OrderExecutionProcess(
-                this.orderExecutionRepository, this.transferRepository, this.transactionTemplate);
+        val executionProcess = this.executionProcess(OrderExecutionProperties.builder().build());
         executionProcess.execute(orderExecution);
         assertTrue(toOrder.isFullyExecuted());
         assertFalse(fromOrder.isOnExecution());
@@ -155,16 +185,17 @@ class OrderExecutionProcessTest {
     @DisplayName("when fromOrder has less remaining quantity of goods, then only it must be fully executed")
     void whenFromOrderHasLessQuantityThenOnlyItMustBeFullyExecuted() {
         val fromId = 11L;
-        val fromOrder = new Order(fromId, OrderType.BUY, BigDecimal.valueOf(11), 13L, true, false, false, 9, 1);
+        val fromOrder = Order.builder().id(fromId).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(11)).quantity(13L).onExecution(true).quantityLeftover(9).version(1)
+                .build();
         val toId = 12L;
-        val toOrder = new Order(toId, OrderType.SELL, BigDecimal.valueOf(11), 14L, true, false, false, 12, 1);
+        val toOrder = Order.builder().id(toId).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(11)).quantity(14L).onExecution(true).quantityLeftover(12).version(1)
+                .build();
         val executionId = 3L;
         val orderExecution = new OrderExecution(executionId, fromOrder, toOrder, 1);
         when(this.orderExecutionRepository.findById(orderExecution.getId())).thenReturn(Optional.of(orderExecution));
-        when(this.transferRepository.sumQuantityOfAllTransfersForOrder(fromId)).thenReturn(4L);
-        when(this.transferRepository.sumQuantityOfAllTransfersForOrder(toId)).thenReturn(2L);
-        val executionProcess = new OrderExecutionProcess(
-                this.orderExecutionRepository, this.transferRepository, this.transactionTemplate);
+        val executionProcess = this.executionProcess(OrderExecutionProperties.builder().build());
         executionProcess.execute(orderExecution);
         assertTrue(fromOrder.isFullyExecuted());
         assertFalse(fromOrder.isOnExecution());
@@ -178,11 +209,154 @@ class OrderExecutionProcessTest {
         assertThat(transfer.getQuantity()).isEqualTo(9L);
     }
 
+    @Test
+    @DisplayName("On optimistic lock conflicts the execution is retried")
+    void whenOptimisticLockConflictThenExecutionIsRetried() {
+        val fromOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val toOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val orderExecution = new OrderExecution(1L, fromOrder, toOrder, 1);
+        when(this.orderExecutionRepository.findById(1L)).thenReturn(Optional.of(orderExecution));
+        doThrow(new OptimisticLockingFailureException("conflict"))
+                .doAnswer(this::runInTransaction)
+                .when(this.transactionTemplate).executeWithoutResult(any());
+        val registry = new SimpleMeterRegistry();
+        val executionProcess = this.executionProcess(
+                OrderExecutionProperties.builder().retryBackoff(Duration.ZERO).build(), registry);
+        executionProcess.markPending(orderExecution);
+        executionProcess.execute(orderExecution);
+        assertThat(registry.get("order.execution.retries").counter().count()).isEqualTo(1);
+        assertThat(registry.get("order.execution").timer().count()).isEqualTo(1);
+        assertFalse(executionProcess.isPending(orderExecution.getId()));
+        assertTrue(fromOrder.isFullyExecuted());
+        assertTrue(toOrder.isFullyExecuted());
+    }
+
+    @Test
+    @DisplayName("On a deadlock at commit the execution is retried")
+    void whenDeadlockAtCommitThenExecutionIsRetried() {
+        val fromOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val toOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val orderExecution = new OrderExecution(1L, fromOrder, toOrder, 1);
+        when(this.orderExecutionRepository.findById(1L)).thenReturn(Optional.of(orderExecution));
+        doThrow(new TransactionSystemException("commit failed", new SQLException("deadlock detected", "40P01")))
+                .doAnswer(this::runInTransaction)
+                .when(this.transactionTemplate).executeWithoutResult(any());
+        val registry = new SimpleMeterRegistry();
+        val executionProcess = this.executionProcess(
+                OrderExecutionProperties.builder().retryBackoff(Duration.ZERO).build(), registry);
+        executionProcess.execute(orderExecution);
+        assertThat(registry.get("order.execution.retries").counter().count()).isEqualTo(1);
+        assertTrue(fromOrder.isFullyExecuted());
+        assertTrue(toOrder.isFullyExecuted());
+    }
+
+    @Test
+    @DisplayName("Other failures are not retried")
+    void whenFailureIsNotTransientThenExecutionIsNotRetried() {
+        val fromOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val toOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val orderExecution = new OrderExecution(1L, fromOrder, toOrder, 1);
+        doThrow(new TransactionSystemException("commit failed", new SQLException("disk full", "53100")))
+                .when(this.transactionTemplate).executeWithoutResult(any());
+        val registry = new SimpleMeterRegistry();
+        val executionProcess = this.executionProcess(OrderExecutionProperties.builder().build(), registry);
+        assertThrows(TransactionSystemException.class, () -> executionProcess.execute(orderExecution));
+        Mockito.verify(this.transactionTemplate).executeWithoutResult(any());
+        assertThat(registry.get("order.execution.retries").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("When all attempts failed the execution is put to the dead letter list")
+    void whenRetriesAreExhaustedThenExecutionIsDeadLettered() {
+        val fromOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val toOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val orderExecution = new OrderExecution(7L, fromOrder, toOrder, 1);
+        doThrow(new OptimisticLockingFailureException("conflict"))
+                .when(this.transactionTemplate).executeWithoutResult(any());
+        val registry = new SimpleMeterRegistry();
+        val executionProcess = this.executionProcess(OrderExecutionProperties.builder()
+                .retryAttempts(3)
+                .retryBackoff(Duration.ZERO)
+                .retryExhaustedPolicy(OrderExecutionProperties.RetryExhaustedPolicy.DEAD_LETTER)
+                .build(), registry);
+        executionProcess.execute(orderExecution);
+        Mockito.verify(this.transactionTemplate, Mockito.times(3)).executeWithoutResult(any());
+        assertThat(registry.get("order.execution.retries").counter().count()).isEqualTo(2);
+        assertThat(registry.get("order.execution.failures").tag("outcome", "dead_letter").counter().count())
+                .isEqualTo(1);
+        assertThat(executionProcess.deadLetters()).containsExactly(7L);
+        assertTrue(executionProcess.isPending(7L));
+        assertThat(executionProcess.releaseDeadLetters()).isEqualTo(1);
+        assertFalse(executionProcess.isPending(7L));
+    }
+
+    @Test
+    @DisplayName("When retry attempts are not positive the execution is attempted once")
+    void whenRetryAttemptsAreNotPositiveThenExecutionIsAttemptedOnce() {
+        val fromOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val toOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val orderExecution = new OrderExecution(9L, fromOrder, toOrder, 1);
+        doThrow(new OptimisticLockingFailureException("conflict"))
+                .when(this.transactionTemplate).executeWithoutResult(any());
+        val registry = new SimpleMeterRegistry();
+        val executionProcess = this.executionProcess(
+                OrderExecutionProperties.builder().retryAttempts(0).build(), registry);
+        executionProcess.execute(orderExecution);
+        Mockito.verify(this.transactionTemplate).executeWithoutResult(any());
+        assertThat(registry.get("order.execution.failures").tag("outcome", "requeued").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("When a concurrent execution has saved the transfer, then the execution is not retried")
+    void whenTransferIsDuplicateThenExecutionIsAlreadyApplied() {
+        val fromOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val toOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(5)).quantity(2).onExecution(true).quantityLeftover(2).version(1).build();
+        val orderExecution = new OrderExecution(8L, fromOrder, toOrder, 1);
+        doThrow(new DataIntegrityViolationException("transfer_order_execution_id"))
+                .when(this.transactionTemplate).executeWithoutResult(any());
+        when(this.transferRepository.existsByOrderExecutionId(8L)).thenReturn(true);
+        val registry = new SimpleMeterRegistry();
+        val executionProcess = this.executionProcess(OrderExecutionProperties.builder().build(), registry);
+        executionProcess.execute(orderExecution);
+        Mockito.verify(this.transactionTemplate).executeWithoutResult(any());
+        assertThat(registry.get("order.execution.retries").counter().count()).isZero();
+        assertFalse(executionProcess.isPending(8L));
+    }
+
+    private Object runInTransaction(final InvocationOnMock invocation) {
+        final Consumer<TransactionStatus> consumer = invocation.getArgument(0);
+        consumer.accept(new SimpleTransactionStatus());
+        return null;
+    }
+
+    private OrderExecutionProcess executionProcess(final OrderExecutionProperties properties) {
+        return this.executionProcess(properties, new SimpleMeterRegistry());
+    }
+
+    private OrderExecutionProcess executionProcess(final OrderExecutionProperties properties,
+                                                   final SimpleMeterRegistry registry) {
+        return new OrderExecutionProcess(
+                this.orderExecutionRepository, this.transferRepository, this.transactionTemplate, properties,
+                new OrdersOnExecution(registry), this.taskScheduler, new SyncTaskExecutor(), registry);
+    }
+
     private void checkExecutionIsCancelled(final Order fromOrder, final Order toOrder) {
         val orderExecution = new OrderExecution(1L, fromOrder, toOrder, 1);
         when(this.orderExecutionRepository.findById(1L)).thenReturn(Optional.of(orderExecution));
-        val executionProcess = new OrderExecutionProcess(
-                this.orderExecutionRepository, this.transferRepository, this.transactionTemplate);
+        val executionProcess = this.executionProcess(OrderExecutionProperties.builder().build());
         executionProcess.execute(orderExecution);
         val captor = ArgumentCaptor.forClass(Transfer.class);
         Mockito.verify(this.transferRepository).save(captor.capture());
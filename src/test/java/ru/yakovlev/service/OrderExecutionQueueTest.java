@@ -0,0 +1,66 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yakovlev.config.OrderExecutionProperties;
+
+class OrderExecutionQueueTest {
+
+    @Test
+    @DisplayName("An order id waiting in the queue is queued once")
+    void whenOrderIdIsWaitingThenItIsNotQueuedAgain() throws InterruptedException {
+        val registry = new SimpleMeterRegistry();
+        val queue = new OrderExecutionQueue(10, OrderExecutionProperties.OverloadPolicy.BLOCK, registry, Tags.empty());
+        assertThat(queue.offer(1L)).isTrue();
+        assertThat(queue.offer(1L)).isTrue();
+        assertThat(queue.offer(2L)).isTrue();
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(registry.get("order.execution.queue.depth").gauge().value()).isEqualTo(2);
+        assertThat(queue.take()).isEqualTo(1L);
+        assertThat(queue.offer(1L)).isTrue();
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("When the queue is full an order id is dropped and the sweep is requested")
+    void whenQueueIsFullThenOrderIdIsDropped() throws InterruptedException {
+        val registry = new SimpleMeterRegistry();
+        val queue = new OrderExecutionQueue(1, OrderExecutionProperties.OverloadPolicy.DROP, registry, Tags.empty());
+        assertThat(queue.offer(1L)).isTrue();
+        assertThat(queue.offer(2L)).isFalse();
+        assertThat(queue.resetDropped()).isTrue();
+        assertThat(queue.resetDropped()).isFalse();
+        assertThat(registry.get("order.execution.queue.dropped").counter().count()).isEqualTo(1);
+        queue.checkCapacity();
+        assertThat(queue.take()).isEqualTo(1L);
+        assertThat(queue.offer(2L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("A notification never waits for free space, even with the block policy")
+    void whenQueueIsFullThenNotificationIsDroppedWithBlockPolicy() throws InterruptedException {
+        val queue = new OrderExecutionQueue(
+                1, OrderExecutionProperties.OverloadPolicy.BLOCK, new SimpleMeterRegistry(), Tags.empty());
+        assertThat(queue.tryOffer(1L)).isTrue();
+        assertThat(queue.tryOffer(2L)).isFalse();
+        assertThat(queue.resetDropped()).isTrue();
+        assertThat(queue.take()).isEqualTo(1L);
+        assertThat(queue.tryOffer(2L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("When the queue is full new orders are rejected with the reject policy")
+    void whenQueueIsFullThenNewOrdersAreRejected() throws InterruptedException {
+        val queue = new OrderExecutionQueue(
+                1, OrderExecutionProperties.OverloadPolicy.REJECT, new SimpleMeterRegistry(), Tags.empty());
+        queue.checkCapacity();
+        assertThat(queue.offer(1L)).isTrue();
+        assertThatThrownBy(queue::checkCapacity).isInstanceOf(OrderExecutionQueueOverflowException.class);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.config.OrderExecutionProperties;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.OrderExecution;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.repositories.OrderExecutionRepository;
+import ru.yakovlev.repositories.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExecutionRecoveryTest {
+    @Mock
+    private OrderExecutionRepository orderExecutionRepository;
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderExecutionProcess orderExecutionProcess;
+
+    @Test
+    @DisplayName("Lost order executions are sent for execution again and counted")
+    void whenExecutionIsLostThenItIsRecovered() {
+        val lost = this.execution(1L);
+        val pending = this.execution(2L);
+        when(this.orderExecutionRepository.findWithoutTransfer(eq(0L), any())).thenReturn(List.of(lost, pending));
+        when(this.orderExecutionProcess.isPending(1L)).thenReturn(false);
+        when(this.orderExecutionProcess.isPending(2L)).thenReturn(true);
+        val registry = new SimpleMeterRegistry();
+        val recovery = new OrderExecutionRecovery(this.orderExecutionRepository, this.orderRepository,
+                this.orderExecutionProcess, OrderExecutionProperties.builder().build(), new OrdersOnExecution(registry),
+                registry);
+        assertThat(recovery.recover()).isEqualTo(1);
+        Mockito.verify(this.orderExecutionProcess).markPending(lost);
+        Mockito.verify(this.orderExecutionProcess).execute(lost);
+        Mockito.verify(this.orderExecutionProcess, never()).execute(pending);
+        assertThat(registry.get("order.execution.recovered").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("The recovery continues after the last checked order execution and wraps around at the end")
+    void whenBatchIsCheckedThenNextRunStartsAfterIt() {
+        val execution = this.execution(5L);
+        when(this.orderExecutionRepository.findWithoutTransfer(eq(0L), any())).thenReturn(List.of(execution));
+        when(this.orderExecutionRepository.findWithoutTransfer(eq(5L), any())).thenReturn(List.of());
+        when(this.orderExecutionProcess.isPending(5L)).thenReturn(true);
+        val registry = new SimpleMeterRegistry();
+        val recovery = new OrderExecutionRecovery(this.orderExecutionRepository, this.orderRepository,
+                this.orderExecutionProcess, OrderExecutionProperties.builder().build(), new OrdersOnExecution(registry),
+                registry);
+        assertThat(recovery.recover()).isZero();
+        assertThat(recovery.recover()).isZero();
+        assertThat(recovery.recover()).isZero();
+        Mockito.verify(this.orderExecutionRepository, Mockito.times(2)).findWithoutTransfer(eq(0L), any());
+        Mockito.verify(this.orderExecutionRepository).findWithoutTransfer(eq(5L), any());
+        Mockito.verify(this.orderRepository).countByOnExecutionTrue();
+    }
+
+    private OrderExecution execution(final Long id) {
+        val buyOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(10)).quantity(5).cancelled(true).quantityLeftover(5).version(1).build();
+        val sellOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(9)).quantity(5).cancelled(true).quantityLeftover(5).version(1).build();
+        return new OrderExecution(id, buyOrder, sellOrder, 1);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.OrderBookEntry;
+
+class OrderLanesTest {
+
+    @Test
+    @DisplayName("Each symbol has its own lanes, one per price band")
+    void whenSymbolIsTradedThenOrderGoesToItsLane() {
+        val lanes = new OrderLanes(List.of("DEFAULT", "GOLD"), new PriceBands(List.of(BigDecimal.TEN)));
+        assertThat(lanes.size()).isEqualTo(4);
+        assertThat(lanes.applyAsInt(this.entry("DEFAULT", BigDecimal.ONE))).isZero();
+        assertThat(lanes.applyAsInt(this.entry("GOLD", BigDecimal.ONE))).isEqualTo(2);
+        assertThat(lanes.applyAsInt(this.entry("GOLD", BigDecimal.TEN))).isEqualTo(3);
+        assertThat(lanes.symbol(3)).isEqualTo("GOLD");
+        assertThat(lanes.band(3)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Orders of a symbol that is not traded go to the lanes of the first symbol")
+    void whenSymbolIsNotTradedThenOrderGoesToLaneOfFirstSymbol() {
+        val lanes = new OrderLanes(List.of("DEFAULT", "GOLD"), new PriceBands(List.of(BigDecimal.TEN)));
+        assertThat(lanes.contains("OIL")).isFalse();
+        assertThat(lanes.applyAsInt(this.entry("OIL", BigDecimal.ONE))).isZero();
+        assertThat(lanes.applyAsInt(this.entry("OIL", BigDecimal.TEN))).isEqualTo(1);
+    }
+
+    private OrderBookEntry entry(final String symbol, final BigDecimal price) {
+        return new OrderBookEntry(1L, symbol, OrderType.BUY, price);
+    }
+}
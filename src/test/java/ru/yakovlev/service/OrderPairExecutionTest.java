@@ -0,0 +1,125 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.config.OrderExecutionProperties;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.OrderExecution;
+import ru.yakovlev.entities.Transfer;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.repositories.OrderExecutionRepository;
+import ru.yakovlev.repositories.TransferRepository;
+
+@ExtendWith(MockitoExtension.class)
+class OrderPairExecutionTest {
+    @Mock
+    private OrderExecutionRepository orderExecutionRepository;
+    @Mock
+    private TransferRepository transferRepository;
+    private final OrdersOnExecution ordersOnExecution = new OrdersOnExecution(new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("In the two phase mode the pair of orders is only marked as being on execution")
+    void whenTwoPhaseModeThenPairIsMarkedOnExecution() {
+        val buyOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(10)).quantity(5).quantityLeftover(5).version(1).build();
+        val sellOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(9)).quantity(3).quantityLeftover(3).version(1).build();
+        val execution = this.execution(OrderExecutionProperties.Mode.TWO_PHASE);
+        execution.sendForExecution(sellOrder, buyOrder, Optional::empty);
+        assertThat(buyOrder.isOnExecution()).isTrue();
+        assertThat(sellOrder.isOnExecution()).isTrue();
+        assertThat(this.ordersOnExecution.get()).isEqualTo(2);
+        val captor = ArgumentCaptor.forClass(OrderExecution.class);
+        Mockito.verify(this.orderExecutionRepository).save(captor.capture());
+        assertThat(captor.getValue().getFromOrder()).isEqualTo(buyOrder);
+        assertThat(captor.getValue().getToOrder()).isEqualTo(sellOrder);
+        Mockito.verify(this.transferRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("In the inline mode the pair of orders is executed in the current transaction")
+    void whenInlineModeThenPairIsExecuted() {
+        when(this.orderExecutionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        val buyOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(10)).quantity(5).quantityLeftover(5).version(1).build();
+        val sellOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(9)).quantity(7).quantityLeftover(7).version(1).build();
+        val execution = this.execution(OrderExecutionProperties.Mode.INLINE);
+        execution.sendForExecution(buyOrder, sellOrder, () -> {
+            throw new IllegalStateException("Only one pair is executed in the inline mode");
+        });
+        assertThat(buyOrder.isFullyExecuted()).isTrue();
+        assertThat(buyOrder.isOnExecution()).isFalse();
+        assertThat(sellOrder.isOnExecution()).isFalse();
+        assertThat(sellOrder.getQuantityLeftover()).isEqualTo(2);
+        val captor = ArgumentCaptor.forClass(Transfer.class);
+        Mockito.verify(this.transferRepository).save(captor.capture());
+        assertThat(captor.getValue().getQuantity()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("In the sweep mode the order is executed against counter orders until it is filled")
+    void whenSweepModeThenOrderIsExecutedUntilFilled() {
+        when(this.orderExecutionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        val buyOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(10)).quantity(8).quantityLeftover(8).version(1).build();
+        val firstSellOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(9)).quantity(3).quantityLeftover(3).version(1).build();
+        val secondSellOrder = Order.builder().id(3L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(9)).quantity(4).quantityLeftover(4).version(1).build();
+        val thirdSellOrder = Order.builder().id(4L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(10)).quantity(6).quantityLeftover(6).version(1).build();
+        val counterOrders = List.of(secondSellOrder, thirdSellOrder).iterator();
+        val execution = this.execution(OrderExecutionProperties.Mode.SWEEP);
+        execution.sendForExecution(buyOrder, firstSellOrder, () -> Optional.of(counterOrders.next()));
+        assertThat(buyOrder.isFullyExecuted()).isTrue();
+        assertThat(buyOrder.isOnExecution()).isFalse();
+        assertThat(firstSellOrder.isFullyExecuted()).isTrue();
+        assertThat(secondSellOrder.isFullyExecuted()).isTrue();
+        assertThat(thirdSellOrder.isFullyExecuted()).isFalse();
+        assertThat(thirdSellOrder.getQuantityLeftover()).isEqualTo(5);
+        val captor = ArgumentCaptor.forClass(Transfer.class);
+        Mockito.verify(this.transferRepository, times(3)).save(captor.capture());
+        assertThat(captor.getAllValues()).extracting(Transfer::getQuantity).containsExactly(3L, 4L, 1L);
+    }
+
+    @Test
+    @DisplayName("In the sweep mode the order is executed against no more counter orders than the sweep limit")
+    void whenSweepLimitIsReachedThenSweepStops() {
+        when(this.orderExecutionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        val sellOrder = Order.builder().id(1L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.SELL)
+                .price(BigDecimal.valueOf(10)).quantity(8).quantityLeftover(8).version(1).build();
+        val buyOrder = Order.builder().id(2L).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY)
+                .price(BigDecimal.valueOf(11)).quantity(3).quantityLeftover(3).version(1).build();
+        val execution = new OrderPairExecution(
+                OrderExecutionProperties.builder().mode(OrderExecutionProperties.Mode.SWEEP).sweepLimit(1).build(),
+                this.orderExecutionRepository, this.transferRepository, this.ordersOnExecution);
+        execution.sendForExecution(sellOrder, buyOrder, () -> {
+            throw new IllegalStateException("Sweep limit is exceeded");
+        });
+        assertThat(sellOrder.getQuantityLeftover()).isEqualTo(5);
+        assertThat(buyOrder.isFullyExecuted()).isTrue();
+    }
+
+    private OrderPairExecution execution(final OrderExecutionProperties.Mode mode) {
+        return new OrderPairExecution(OrderExecutionProperties.builder().mode(mode).build(),
+                this.orderExecutionRepository, this.transferRepository, this.ordersOnExecution);
+    }
+}
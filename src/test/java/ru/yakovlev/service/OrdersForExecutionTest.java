@@ -0,0 +1,91 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.config.OrderExecutionProperties;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+import ru.yakovlev.model.OrderBookEntry;
+import ru.yakovlev.repositories.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class OrdersForExecutionTest {
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Test
+    @DisplayName("Orders are sent for execution by pages that follow the last id of the previous page")
+    void whenOrdersAreSentForExecutionThenTheyAreReadByPages() throws InterruptedException {
+        when(this.orderRepository.findOrderEntriesForExecution(0L, 1000)).thenReturn(entries(1, 1000));
+        when(this.orderRepository.findOrderEntriesForExecution(1000L, 500)).thenReturn(entries(1001, 1500));
+        val queue = new OrderExecutionQueue(2000, OrderExecutionProperties.OverloadPolicy.BLOCK,
+                new SimpleMeterRegistry(), Tags.empty());
+        val ordersForExecution = this.ordersForExecution(queue, entry -> { });
+        assertThat(ordersForExecution.sendToExecution(1500)).isEqualTo(1500);
+        assertThat(queue.size()).isEqualTo(1500);
+        Mockito.verify(this.orderRepository, Mockito.times(2)).findOrderEntriesForExecution(Mockito.anyLong(),
+                Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Reading stops at a page that is not full")
+    void whenPageIsNotFullThenNoMorePagesAreRead() throws InterruptedException {
+        when(this.orderRepository.findOrderEntriesForExecution(0L, 1000)).thenReturn(entries(1, 3));
+        val queue = new OrderExecutionQueue(10, OrderExecutionProperties.OverloadPolicy.BLOCK,
+                new SimpleMeterRegistry(), Tags.empty());
+        assertThat(this.ordersForExecution(queue, entry -> { }).sendToExecution(5000)).isEqualTo(3);
+        Mockito.verify(this.orderRepository).findOrderEntriesForExecution(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Orders of an id range are read from the first id of the range up to its last id")
+    void whenRangeIsSentForExecutionThenOnlyItsOrdersAreRead() throws InterruptedException {
+        when(this.orderRepository.findOrderEntriesForExecution(100L, 1000)).thenReturn(entries(101, 1100));
+        when(this.orderRepository.findOrderEntriesForExecution(1100L, 1000)).thenReturn(entries(1101, 2100));
+        val queue = new OrderExecutionQueue(5000, OrderExecutionProperties.OverloadPolicy.BLOCK,
+                new SimpleMeterRegistry(), Tags.empty());
+        assertThat(this.ordersForExecution(queue, entry -> { }).sendToExecution(101L, 1600L)).isEqualTo(1500);
+        assertThat(queue.size()).isEqualTo(1500);
+        Mockito.verify(this.orderRepository, Mockito.times(2)).findOrderEntriesForExecution(Mockito.anyLong(),
+                Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Seeded orders are placed in the order book")
+    void whenOrdersArePlacedInBookThenBookGetsThem() {
+        final List<OrderBookEntry> placed = new ArrayList<>();
+        val queue = new OrderExecutionQueue(10, OrderExecutionProperties.OverloadPolicy.BLOCK,
+                new SimpleMeterRegistry(), Tags.empty());
+        val entries = entries(1, 2);
+        this.ordersForExecution(queue, placed::add).placeInBook(entries);
+        assertThat(placed).isEqualTo(entries);
+    }
+
+    private OrdersForExecution ordersForExecution(final OrderExecutionQueue queue,
+                                                  final Consumer<OrderBookEntry> book) {
+        return new OrdersForExecution(List.of(queue), entry -> 0, id -> null, this.orderRepository, book,
+                new SimpleMeterRegistry());
+    }
+
+    private static List<OrderBookEntry> entries(final long from, final long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(id -> new OrderBookEntry(id, Order.DEFAULT_SYMBOL, OrderType.BUY, BigDecimal.TEN))
+                .collect(Collectors.toList());
+    }
+}
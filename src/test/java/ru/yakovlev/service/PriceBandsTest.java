@@ -0,0 +1,33 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PriceBandsTest {
+
+    @Test
+    @DisplayName("A price goes to the band between the boundaries, a boundary belongs to the upper band")
+    void whenPriceIsGivenThenItsBandIsReturned() {
+        val bands = new PriceBands(List.of(BigDecimal.valueOf(20), BigDecimal.TEN, new BigDecimal("10.00")));
+        assertThat(bands.size()).isEqualTo(3);
+        assertThat(bands.band(BigDecimal.ONE)).isZero();
+        assertThat(bands.band(new BigDecimal("9.99"))).isZero();
+        assertThat(bands.band(new BigDecimal("10.0"))).isEqualTo(1);
+        assertThat(bands.band(BigDecimal.valueOf(15))).isEqualTo(1);
+        assertThat(bands.band(BigDecimal.valueOf(20))).isEqualTo(2);
+        assertThat(bands.band(BigDecimal.valueOf(1000))).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Without boundaries all prices go to one band")
+    void whenNoBoundariesThenOneBand() {
+        val bands = new PriceBands(List.of());
+        assertThat(bands.size()).isEqualTo(1);
+        assertThat(bands.band(BigDecimal.valueOf(1000))).isZero();
+    }
+}
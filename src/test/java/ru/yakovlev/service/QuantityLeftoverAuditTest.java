@@ -0,0 +1,62 @@
+package ru.yakovlev.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yakovlev.config.OrderExecutionProperties;
+import ru.yakovlev.model.OrderQuantityAudit;
+import ru.yakovlev.repositories.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class QuantityLeftoverAuditTest {
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Test
+    @DisplayName("Quantity leftovers consistent with transfers are not reported")
+    void whenBookIsConsistentThenNoDriftIsReported() {
+        when(this.orderRepository.findQuantityAudits(eq(0L), any())).thenReturn(List.of(
+                new OrderQuantityAudit(1L, 10L, 10L, 0L, 0L),
+                new OrderQuantityAudit(2L, 10L, 4L, 6L, 0L),
+                new OrderQuantityAudit(3L, 10L, 0L, 3L, 7L)));
+        assertThat(this.audit().audit()).isZero();
+    }
+
+    @Test
+    @DisplayName("Quantity leftovers that differ from transfers are reported")
+    void whenBookIsCorruptedThenDriftIsReported() {
+        when(this.orderRepository.findQuantityAudits(eq(0L), any())).thenReturn(List.of(
+                new OrderQuantityAudit(1L, 10L, 10L, 0L, 0L),
+                new OrderQuantityAudit(2L, 10L, 5L, 6L, 0L),
+                new OrderQuantityAudit(3L, 10L, 10L, 3L, 7L)));
+        assertThat(this.audit().audit()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("The audit continues after the last checked order and wraps around at the end")
+    void whenBatchIsCheckedThenNextRunStartsAfterIt() {
+        when(this.orderRepository.findQuantityAudits(eq(0L), any()))
+                .thenReturn(List.of(new OrderQuantityAudit(5L, 1L, 1L, 0L, 0L)));
+        when(this.orderRepository.findQuantityAudits(eq(5L), any())).thenReturn(List.of());
+        val audit = this.audit();
+        audit.audit();
+        audit.audit();
+        audit.audit();
+        Mockito.verify(this.orderRepository, Mockito.times(2)).findQuantityAudits(eq(0L), any());
+        Mockito.verify(this.orderRepository).findQuantityAudits(eq(5L), any());
+    }
+
+    private QuantityLeftoverAudit audit() {
+        return new QuantityLeftoverAudit(this.orderRepository, OrderExecutionProperties.builder().build());
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yakovlev.service.security;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.jdbc.LookupStrategy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import ru.yakovlev.config.AclCacheProperties;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.repositories.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class AclCacheWarmUpTest {
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private LookupStrategy lookupStrategy;
+
+    @Test
+    @DisplayName("Access control lists of recent orders are loaded once for repeated authentications")
+    void whenUserIsAuthenticatedTwiceThenAclsAreLoadedOnce() {
+        when(this.orderRepository.findIdsByOwner(eq("user1"), any())).thenReturn(List.of(2L, 1L));
+        val warmUp = new AclCacheWarmUp(this.orderRepository, this.lookupStrategy, new SyncTaskExecutor(),
+                AclCacheProperties.builder().build(), new SimpleMeterRegistry());
+        val event = new AuthenticationSuccessEvent(new TestingAuthenticationToken("user1", "password"));
+        warmUp.onAuthenticationSuccess(event);
+        warmUp.onAuthenticationSuccess(event);
+        verify(this.lookupStrategy, times(1)).readAclsById(
+                eq(List.of(new ObjectIdentityImpl(Order.class, 2L), new ObjectIdentityImpl(Order.class, 1L))),
+                isNull());
+    }
+}
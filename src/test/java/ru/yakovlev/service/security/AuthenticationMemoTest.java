@@ -0,0 +1,47 @@
+package ru.yakovlev.service.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
+import org.springframework.security.acls.domain.GrantedAuthoritySid;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+
+class AuthenticationMemoTest {
+
+    @Test
+    @DisplayName("Reachable authorities are computed once per authentication")
+    void whenAuthoritiesAreRequestedTwiceThenTheyAreComputedOnce() {
+        val hierarchy = new RoleHierarchyImpl();
+        hierarchy.setHierarchy("ROLE_ADMIN > ROLE_SUPERVISOR");
+        val roleHierarchy = Mockito.spy(hierarchy);
+        val registry = new SimpleMeterRegistry();
+        val memo = new AuthenticationMemo(roleHierarchy, registry);
+        val authentication = new TestingAuthenticationToken("admin", "password", "ROLE_ADMIN");
+        assertThat(memo.authorities(authentication)).containsExactlyInAnyOrder("ROLE_ADMIN", "ROLE_SUPERVISOR");
+        assertThat(memo.authorities(authentication)).containsExactlyInAnyOrder("ROLE_ADMIN", "ROLE_SUPERVISOR");
+        verify(roleHierarchy, times(1)).getReachableGrantedAuthorities(any());
+        memo.authorities(new TestingAuthenticationToken("admin", "password", "ROLE_ADMIN"));
+        verify(roleHierarchy, times(2)).getReachableGrantedAuthorities(any());
+        assertThat(registry.get("cache.gets").tag("cache", "user-authorities").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Security identities of an authentication are reused")
+    void whenSidsAreRequestedTwiceThenTheSameListIsReturned() {
+        val memo = new AuthenticationMemo(new RoleHierarchyImpl(), new SimpleMeterRegistry());
+        val authentication = new TestingAuthenticationToken("user1", "password", "ROLE_USER");
+        val sids = memo.getSids(authentication);
+        assertThat(sids).containsExactly(new PrincipalSid("user1"), new GrantedAuthoritySid("ROLE_USER"));
+        assertThat(memo.getSids(authentication)).isSameAs(sids);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yakovlev.service.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import lombok.val;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+    @Mock
+    private AuthenticationProvider delegate;
+
+    @Test
+    @DisplayName("Verified credentials are not verified again until the user is evicted")
+    void whenCredentialsAreVerifiedThenTheyAreCached() {
+        val authenticated = new UsernamePasswordAuthenticationToken(
+                "user1", null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        when(this.delegate.authenticate(any())).thenReturn(authenticated);
+        val cache = new AuthenticationCache(10, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        val provider = new CachingAuthenticationProvider(this.delegate, cache);
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user1", "password"));
+        val result = provider.authenticate(new UsernamePasswordAuthenticationToken("user1", "password"));
+        assertThat(result.getName()).isEqualTo("user1");
+        assertThat(result.getAuthorities()).isEqualTo(authenticated.getAuthorities());
+        assertThat(result.isAuthenticated()).isTrue();
+        verify(this.delegate, times(1)).authenticate(any());
+        cache.evict("user1");
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user1", "password"));
+        verify(this.delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("A different password of a cached user is verified by the delegate")
+    void whenPasswordDiffersThenItIsVerified() {
+        val cache = new AuthenticationCache(10, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        val provider = new CachingAuthenticationProvider(this.delegate, cache);
+        when(this.delegate.authenticate(any())).thenReturn(new UsernamePasswordAuthenticationToken(
+                "user1", null, List.of()));
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user1", "password"));
+        when(this.delegate.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+        assertThatThrownBy(() -> provider.authenticate(new UsernamePasswordAuthenticationToken("user1", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yakovlev.service.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import lombok.val;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.yakovlev.entities.Order;
+import ru.yakovlev.entities.embedded.OrderType;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityServiceTest {
+    @Mock
+    private AuthenticationMemo authenticationMemo;
+    @Mock
+    private BatchMutableAclService aclService;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private SessionImplementor session;
+    @Mock
+    private ActionQueue actionQueue;
+
+    @AfterEach
+    void clear() {
+        TransactionSynchronizationManager.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Access control lists of a transaction are created by one batch after the flush at the commit")
+    void whenTransactionCompletesThenAclsAreCreatedByOneBatch() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user1", "password"));
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        when(this.entityManager.unwrap(SessionImplementor.class)).thenReturn(this.session);
+        when(this.session.getActionQueue()).thenReturn(this.actionQueue);
+        final List<ObjectIdentity> created = new ArrayList<>();
+        doAnswer(invocation -> created.addAll(invocation.getArgument(0))).when(this.aclService)
+                .createAcls(any(), anyMap());
+        val securityService = new SecurityService(this.authenticationMemo, this.aclService, this.entityManager);
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        securityService.createAcl(this.order(1L));
+        securityService.createAcl(this.order(2L));
+        val process = ArgumentCaptor.forClass(BeforeTransactionCompletionProcess.class);
+        verify(this.actionQueue).registerProcess(process.capture());
+        verify(this.aclService, never()).createAcls(any(), anyMap());
+        process.getValue().doBeforeTransactionCompletion(this.session);
+        TransactionSynchronizationUtils.triggerAfterCompletion(0);
+        assertThat(created).containsExactly(
+                new ObjectIdentityImpl(Order.class, 1L), new ObjectIdentityImpl(Order.class, 2L));
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Access control lists are not created outside of a transaction")
+    void whenNoTransactionThenAclIsNotCreated() {
+        val securityService = new SecurityService(this.authenticationMemo, this.aclService, this.entityManager);
+        assertThrows(IllegalArgumentException.class, () -> securityService.createAcl(this.order(1L)));
+        verify(this.aclService, never()).createAcls(any(), anyMap());
+    }
+
+    private Order order(final Long id) {
+        return Order.builder().id(id).symbol(Order.DEFAULT_SYMBOL).type(OrderType.BUY).price(BigDecimal.ONE)
+                .quantity(1).quantityLeftover(1).version(1).build();
+    }
+}